@@ -1,9 +1,11 @@
 package study.querydsl;
 
+import org.springframework.context.annotation.Lazy;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 @RestController
+@Lazy // 기동에 필요 없으므로 처음 쓰일 때 생성
 public class HelloController {
 
     @GetMapping("/hello")
@@ -0,0 +1,32 @@
+package study.querydsl.cache;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 2차 캐시 리전 하나의 지표 스냅샷 (JCache CacheStatisticsMXBean 값)
+ * evictions는 크기 제한으로 밀려난 엔트리 수다. 벌크 연산 등으로 리전을 비운 것은 포함하지 않는다.
+ */
+@Getter
+@ToString
+public class CacheRegionStats {
+
+    private final String region;
+    private final long hits;
+    private final long misses;
+    private final long puts;
+    private final long evictions;
+
+    public CacheRegionStats(String region, long hits, long misses, long puts, long evictions) {
+        this.region = region;
+        this.hits = hits;
+        this.misses = misses;
+        this.puts = puts;
+        this.evictions = evictions;
+    }
+
+    public double getHitRatio() {
+        long gets = hits + misses;
+        return gets == 0 ? 0 : (double) hits / gets;
+    }
+}
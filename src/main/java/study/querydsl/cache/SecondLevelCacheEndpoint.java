@@ -0,0 +1,24 @@
+package study.querydsl.cache;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * GET /actuator/l2cache - 2차 캐시 리전별 hit / miss / put / eviction
+ */
+@Component
+@Endpoint(id = "l2cache")
+@RequiredArgsConstructor
+public class SecondLevelCacheEndpoint {
+
+    private final SecondLevelCacheRegions regions;
+
+    @ReadOperation
+    public List<CacheRegionStats> regions() {
+        return regions.stats();
+    }
+}
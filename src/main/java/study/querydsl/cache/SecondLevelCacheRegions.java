@@ -0,0 +1,100 @@
+package study.querydsl.cache;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Set;
+
+/**
+ * Hibernate 2차 캐시 리전 (JCache + Caffeine, 프로세스 내 로컬 캐시)
+ *
+ * 리전마다 최대 크기를 정해 EntityManagerFactory가 만들어지기 전에 미리 만들어 둔다.
+ * 같은 JVM에 컨텍스트가 여럿 떠도(테스트) 기본 CacheManager 하나를 나눠 쓰므로
+ * 컨텍스트마다 리전 이름 앞에 prefix를 붙여 서로의 엔티티가 섞이지 않게 한다.
+ *
+ * JPQL 벌크 연산(update / delete execute())은 Hibernate가 대상 테이블에 걸린 엔티티 / 컬렉션 리전을 통째로 비운다.
+ */
+@Slf4j
+@Component
+public class SecondLevelCacheRegions implements HibernatePropertiesCustomizer {
+
+    public static final String TEAM = "team";
+    public static final String TEAM_MEMBERS = "team-members";
+    public static final String MEMBER = "member";
+
+    private final String prefix = "querydsl-" + Integer.toHexString(System.identityHashCode(this));
+    private final Map<String, Long> maximumSizes = new LinkedHashMap<>();
+
+    public SecondLevelCacheRegions(@Value("${querydsl.cache.team-size:1000}") long teamSize,
+                                   @Value("${querydsl.cache.team-members-size:1000}") long teamMembersSize,
+                                   @Value("${querydsl.cache.member-size:10000}") long memberSize) {
+        maximumSizes.put(TEAM, teamSize);
+        maximumSizes.put(TEAM_MEMBERS, teamMembersSize);
+        maximumSizes.put(MEMBER, memberSize);
+    }
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        // hibernate.javax.cache.provider와 같은 기본 CacheManager를 Hibernate도 받아간다.
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName()).getCacheManager();
+        maximumSizes.forEach((region, maximumSize) -> {
+            String cacheName = cacheName(region);
+            if (cacheManager.getCache(cacheName) == null) {
+                cacheManager.createCache(cacheName, configuration(maximumSize));
+            }
+        });
+        hibernateProperties.put("hibernate.cache.region_prefix", prefix);
+        log.info("second-level cache regions: {} (prefix {})", maximumSizes, prefix);
+    }
+
+    public List<CacheRegionStats> stats() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        List<CacheRegionStats> result = new ArrayList<>();
+        for (String region : maximumSizes.keySet()) {
+            try {
+                Set<ObjectName> names = server.queryNames(
+                        new ObjectName("javax.cache:type=CacheStatistics,Cache=" + cacheName(region) + ",*"), null);
+                if (names.isEmpty()) {
+                    continue;
+                }
+                ObjectName name = names.iterator().next();
+                result.add(new CacheRegionStats(region,
+                        (Long) server.getAttribute(name, "CacheHits"),
+                        (Long) server.getAttribute(name, "CacheMisses"),
+                        (Long) server.getAttribute(name, "CachePuts"),
+                        (Long) server.getAttribute(name, "CacheEvictions")));
+            } catch (Exception e) {
+                log.warn("cannot read cache statistics of {}", region, e);
+            }
+        }
+        return result;
+    }
+
+    // Hibernate는 region_prefix와 리전 이름을 '.'으로 잇는다.
+    private String cacheName(String region) {
+        return prefix + "." + region;
+    }
+
+    private static CaffeineConfiguration<Object, Object> configuration(long maximumSize) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(maximumSize));
+        // Hibernate 캐시 엔트리는 불변이므로 직렬화 복사(store-by-value)를 하지 않는다.
+        configuration.setStoreByValue(false);
+        configuration.setStatisticsEnabled(true);
+        return configuration;
+    }
+}
@@ -0,0 +1,26 @@
+package study.querydsl.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import study.querydsl.controller.QueryTraceInterceptor;
+import study.querydsl.controller.QueryWorkloadInterceptor;
+import study.querydsl.controller.RequestDeadlineInterceptor;
+
+@Configuration
+@RequiredArgsConstructor
+public class WebConfig implements WebMvcConfigurer {
+
+    private final RequestDeadlineInterceptor requestDeadlineInterceptor;
+    private final QueryTraceInterceptor queryTraceInterceptor;
+    private final QueryWorkloadInterceptor queryWorkloadInterceptor;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(requestDeadlineInterceptor);
+        registry.addInterceptor(queryTraceInterceptor);
+        // 데드라인이 걸린 뒤에 예산을 기다린다.
+        registry.addInterceptor(queryWorkloadInterceptor);
+    }
+}
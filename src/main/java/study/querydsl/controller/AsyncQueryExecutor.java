@@ -0,0 +1,120 @@
+package study.querydsl.controller;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import study.querydsl.repository.QueryDeadline;
+import study.querydsl.repository.timing.QueryTrace;
+import study.querydsl.scheduling.QueryScheduler;
+import study.querydsl.scheduling.WorkloadClass;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 비동기 핸들러(/async/v1~v3/members)의 리포지토리 호출을 실행하는 전용 풀
+ *
+ * 워커 수는 커넥션 풀 크기에 맞춘다. 그보다 많으면 워커가 커넥션을 기다릴 뿐이다.
+ * 다른 풀과 달리 CallerRunsPolicy를 쓰지 않는다. 호출 스레드가 서블릿 스레드이므로
+ * 큐가 차면 바로 QueryRejectedException(503)으로 거절해 서블릿 스레드를 잡아두지 않는다.
+ *
+ * 워커는 QueryScheduler의 INTERACTIVE 예산을 받은 뒤 쿼리를 실행한다.
+ * 요청의 QueryDeadline / QueryTrace는 워커로 넘기고, 남은 데드라인(없으면 default-timeout)이 지나면
+ * future를 TimeoutException으로 끝낸다. 큐에서 기다리다 시간이 지난 작업은 실행하지 않는다.
+ */
+@Component
+public class AsyncQueryExecutor {
+
+    private final QueryScheduler queryScheduler;
+    private final ThreadPoolExecutor workers;
+    private final int queueCapacity;
+    private final long defaultTimeoutMillis;
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+
+    public AsyncQueryExecutor(QueryScheduler queryScheduler,
+                              @Value("${querydsl.async.workers:${spring.datasource.hikari.maximum-pool-size:10}}") int workers,
+                              @Value("${querydsl.async.queue-capacity:100}") int queueCapacity,
+                              @Value("${querydsl.async.default-timeout:3000}") long defaultTimeoutMillis) {
+        this.queryScheduler = queryScheduler;
+        this.queueCapacity = queueCapacity;
+        this.defaultTimeoutMillis = defaultTimeoutMillis;
+        this.workers = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "member-async-query");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public <T> CompletableFuture<T> submit(Supplier<T> query) {
+        Long deadline = QueryDeadline.current();
+        QueryTrace trace = QueryTrace.current();
+        CompletableFuture<T> future = new CompletableFuture<>();
+
+        Runnable task = () -> {
+            // 큐에서 기다리는 동안 타임아웃된 요청
+            if (future.isDone()) {
+                return;
+            }
+            Long previousDeadline = QueryDeadline.current();
+            QueryTrace previousTrace = QueryTrace.current();
+            QueryDeadline.restore(deadline);
+            QueryTrace.restore(trace);
+            try {
+                future.complete(queryScheduler.call(WorkloadClass.INTERACTIVE, query));
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            } finally {
+                QueryDeadline.restore(previousDeadline);
+                QueryTrace.restore(previousTrace);
+            }
+        };
+
+        try {
+            workers.execute(task);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new QueryRejectedException(queueCapacity);
+        }
+
+        long timeoutMillis = deadline == null
+                ? defaultTimeoutMillis
+                : Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()));
+        return future.orTimeout(timeoutMillis, TimeUnit.MILLISECONDS)
+                .whenComplete((result, e) -> {
+                    if (e instanceof TimeoutException) {
+                        timedOut.increment();
+                    }
+                });
+    }
+
+    public int getActive() {
+        return workers.getActiveCount();
+    }
+
+    public int getQueued() {
+        return workers.getQueue().size();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    public long getTimedOut() {
+        return timedOut.sum();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdown();
+    }
+}
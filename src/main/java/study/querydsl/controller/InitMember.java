@@ -1,29 +1,79 @@
 package study.querydsl.controller;
 
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
 import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.Team;
-import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.shard.ShardedMemberRepository;
+import study.querydsl.startup.ReadinessGate;
 
 import javax.annotation.PostConstruct;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.List;
 
+@Slf4j
 @Profile("local")
 @Component // Spring Bean 자동 등록
 @RequiredArgsConstructor
 // 멤버 생성
 public class InitMember {
 
+    private static final String SEED = "seed";
+
     private final InitMemberService initMemberService;
+    private final ReadinessGate readinessGate;
+    // querydsl.shard.enabled=true 면 기본 DB 대신 샤드에 시딩한다.
+    private final ObjectProvider<ShardedMemberRepository> shardedMemberRepository;
+
+    // 기본은 기동 스레드에서 바로 시딩한다. (테스트가 백그라운드 시딩과 경합하지 않도록)
+    // 배포 환경에서는 deploy 프로파일이 true로 켜서 기동을 막지 않는다.
+    @Value("${querydsl.init.async:false}")
+    private boolean async;
 
     @PostConstruct
-    // @PostConstruct, @Transactional는 스프링 라이프 사이클 상 동시에 넣을 수 없으므로 분리한다.
+    // 시딩이 끝날 때까지 readiness를 붙잡아 둔다.
+    public void hold() {
+        readinessGate.hold(SEED);
+    }
+
+    /**
+     * querydsl.init.async=true면 기동을 막지 않도록 컨텍스트가 뜬 뒤 백그라운드 스레드에서 실행한다.
+     * 끝나면 readiness가 ACCEPTING_TRAFFIC으로 바뀐다.
+     */
+    @EventListener(ApplicationStartedEvent.class)
     public void init() {
-        initMemberService.init();
+        Runnable seed = () -> {
+            long start = System.currentTimeMillis();
+            try {
+                ShardedMemberRepository shards = shardedMemberRepository.getIfAvailable();
+                if (shards != null) {
+                    initMemberService.initShards(shards);
+                } else {
+                    initMemberService.init();
+                }
+                log.info("member seed finished in {} ms", System.currentTimeMillis() - start);
+            } catch (RuntimeException e) {
+                log.error("member seed failed", e);
+            } finally {
+                readinessGate.release(SEED);
+            }
+        };
+        if (!async) {
+            seed.run();
+            return;
+        }
+        Thread seeder = new Thread(seed, "member-seed");
+        seeder.setDaemon(true);
+        seeder.start();
     }
 
     @Component
@@ -31,22 +81,58 @@ public class InitMember {
         @PersistenceContext
         private EntityManager em;
 
+        @Value("${querydsl.init.member-count:100}")
+        private int memberCount;
+
+        @Value("${querydsl.init.flush-size:1000}")
+        private int flushSize;
+
         @Transactional
         public void init() {
+            // ddl-auto가 create가 아니면 재기동 시 이미 시딩된 데이터를 그대로 쓴다.
+            Long existing = em.createQuery("select count(t) from Team t", Long.class).getSingleResult();
+            if (existing > 0) {
+                log.info("member seed skipped: {} teams already present", existing);
+                return;
+            }
+
             Team teamA = new Team("teamA");
             Team teamB = new Team("teamB");
             em.persist(teamA);
             em.persist(teamB);
 
-            for (int i = 0; i < 100; i++) {
+            for (int i = 0; i < memberCount; i++) {
                 Team selectedTeam = i % 2 == 0 ? teamA : teamB;
                 em.persist(new Member("member"+i, i, selectedTeam));
+
+                // 영속성 컨텍스트가 계속 커지지 않도록 중간중간 비운다. (jdbc batch_size 단위로 insert)
+                if ((i + 1) % flushSize == 0) {
+                    em.flush();
+                    em.clear();
+                    teamA = em.getReference(Team.class, teamA.getId());
+                    teamB = em.getReference(Team.class, teamB.getId());
+                }
             }
 
             em.flush();
             em.clear();
+        }
 
+        // 기본 DB와 같은 데이터를 팀 이름 해시로 나눠 넣는다. (샤드마다 자체 트랜잭션)
+        public void initShards(ShardedMemberRepository shards) {
+            if (!shards.isEmpty()) {
+                log.info("member shard seed skipped: shards already hold teams");
+                return;
+            }
+
+            Team teamA = shards.saveTeam(new Team("teamA"));
+            Team teamB = shards.saveTeam(new Team("teamB"));
 
+            List<Member> members = new ArrayList<>(memberCount);
+            for (int i = 0; i < memberCount; i++) {
+                members.add(new Member("member"+i, i, i % 2 == 0 ? teamA : teamB));
+            }
+            shards.saveAll(members, flushSize);
         }
     }
 
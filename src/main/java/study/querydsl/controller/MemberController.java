@@ -3,36 +3,168 @@ package study.querydsl.controller;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import study.querydsl.dto.EstimatedPage;
+import study.querydsl.dto.LeanPage;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.entity.Member;
+import study.querydsl.repository.MemberFields;
 import study.querydsl.repository.MemberJpaRepository;
-import study.querydsl.repository.MemberRepository;
+import study.querydsl.repository.QueryDeadlineExceededException;
+import study.querydsl.repository.batch.MemberBatchSearcher;
+import study.querydsl.repository.shard.MemberSearchRouter;
+import study.querydsl.scheduling.WorkloadClass;
 
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
 
+// 화면 검색 - 벌크 작업보다 먼저 커넥션 예산을 받는다. (QueryScheduler)
+// querydsl.shard.enabled=true 면 v1 ~ v3 (lean / async 포함)는 샤드에서 검색하고, 기본 DB 전용 검색은 501 (MemberSearchRouter)
 @RestController
 @RequiredArgsConstructor
+@QueryWorkload(WorkloadClass.INTERACTIVE)
 public class MemberController {
 
     private final MemberJpaRepository memberJpaRepository;
-    private final MemberRepository memberRepository;
+    private final MemberSearchRouter memberSearchRouter;
+    private final MemberBatchSearcher memberBatchSearcher;
+    private final AsyncQueryExecutor asyncQueryExecutor;
 
     // http://localhost:8080/v1/members?teamName=teamB&ageGoe=31&ageLoe=35
     @GetMapping("v1/members")
+    @RequestDeadline("${querydsl.deadline.v1-members:2000}")
     public List<MemberTeamDto> searchMemberV1(MemberSearchCondition condition) {
-        return memberJpaRepository.search(condition);
+        return searchV1(condition);
     }
 
     @GetMapping("/v2/members")
+    @RequestDeadline("${querydsl.deadline.v2-members:3000}")
     public Page<MemberTeamDto> searchMemberV2(MemberSearchCondition condition, Pageable pageable) {
-        return memberRepository.searchPageSimple(condition, pageable);
+        return memberSearchRouter.search().searchPageSimple(condition, pageable);
     }
 
     @GetMapping("/v3/members")
+    @RequestDeadline("${querydsl.deadline.v3-members:3000}")
     public Page<MemberTeamDto> searchMemberV3(MemberSearchCondition condition, Pageable pageable) {
-        return memberRepository.searchPageComplex(condition, pageable);
+        return memberSearchRouter.search().searchPageComplex(condition, pageable);
+    }
+
+    /**
+     * 전체 건수가 큰 검색은 count 쿼리 없이 통계로 추정한 totalElements를 준다. (totalExact=false)
+     * ex) http://localhost:8080/v4/members?ageGoe=20&page=0&size=20
+     */
+    @GetMapping("/v4/members")
+    @RequestDeadline("${querydsl.deadline.v4-members:3000}")
+    public EstimatedPage<MemberTeamDto> searchMemberV4(MemberSearchCondition condition, Pageable pageable) {
+        return memberSearchRouter.singleStore("estimated count").searchPageEstimated(condition, pageable);
+    }
+
+    /**
+     * 화면 하나에서 쓰는 여러 검색을 요청 한 번으로 실행한다.
+     * ex) POST /v1/members/batch [{"teamName":"teamA"}, {"teamName":"teamB","ageGoe":30}]
+     * 응답은 요청 인덱스 -> v1/members 결과
+     * 쿼리는 MemberBatchSearcher 워커가 쿼리마다 INTERACTIVE 예산을 받아 실행하므로 요청 스레드는 예산을 잡지 않는다.
+     */
+    @PostMapping("/v1/members/batch")
+    @NoQueryWorkload
+    @RequestDeadline("${querydsl.deadline.v1-members-batch:3000}")
+    public Map<Integer, List<MemberTeamDto>> searchMemberBatch(@RequestBody List<MemberSearchCondition> conditions) {
+        memberSearchRouter.singleStore("batch search");
+        return memberBatchSearcher.search(conditions);
+    }
+
+    /**
+     * lean 파라미터가 있으면 PageImpl 대신 LeanPage(content, total, page, size, nextToken)로 응답한다.
+     * ex) http://localhost:8080/v3/members?page=0&size=20&lean
+     */
+    @GetMapping(value = "/v2/members", params = {"lean", "!fields"})
+    @RequestDeadline("${querydsl.deadline.v2-members:3000}")
+    public LeanPage<MemberTeamDto> searchMemberV2Lean(MemberSearchCondition condition, Pageable pageable) {
+        return LeanPage.of(memberSearchRouter.search().searchPageSimple(condition, pageable));
+    }
+
+    @GetMapping(value = "/v3/members", params = {"lean", "!fields"})
+    @RequestDeadline("${querydsl.deadline.v3-members:3000}")
+    public LeanPage<MemberTeamDto> searchMemberV3Lean(MemberSearchCondition condition, Pageable pageable) {
+        return LeanPage.of(memberSearchRouter.search().searchPageComplex(condition, pageable));
+    }
+
+    /**
+     * fields 파라미터가 있으면 요청한 필드만 select / 응답한다.
+     * ex) http://localhost:8080/v1/members?ageGoe=31&fields=username,age
+     */
+    @GetMapping(value = "v1/members", params = "fields")
+    @RequestDeadline("${querydsl.deadline.v1-members:2000}")
+    public List<Map<String, Object>> searchMemberV1Fields(MemberSearchCondition condition,
+                                                          @RequestParam String fields) {
+        return memberSearchRouter.singleStore("fields").search(condition, MemberFields.parse(fields));
+    }
+
+    // v2는 count 쿼리를 항상, v3는 필요할 때만 실행한다. (fields 없는 v2 / v3와 같음)
+    @GetMapping(value = "/v2/members", params = "fields")
+    @RequestDeadline("${querydsl.deadline.v2-members:3000}")
+    public Page<Map<String, Object>> searchMemberV2Fields(MemberSearchCondition condition, Pageable pageable,
+                                                         @RequestParam String fields) {
+        return memberSearchRouter.singleStore("fields").searchPageSimple(condition, MemberFields.parse(fields), pageable);
+    }
+
+    @GetMapping(value = "/v3/members", params = "fields")
+    @RequestDeadline("${querydsl.deadline.v3-members:3000}")
+    public Page<Map<String, Object>> searchMemberV3Fields(MemberSearchCondition condition, Pageable pageable,
+                                                         @RequestParam String fields) {
+        return memberSearchRouter.singleStore("fields").searchPage(condition, MemberFields.parse(fields), pageable);
+    }
+
+    /**
+     * v1 ~ v3의 비동기 버전 - 쿼리는 AsyncQueryExecutor 풀에서 실행되고 서블릿 스레드는 바로 반환된다.
+     * 큐가 차면 바로 503, 데드라인 안에 끝나지 않아도 503
+     * ex) http://localhost:8080/async/v3/members?teamName=teamA&page=0&size=20
+     */
+    @GetMapping("/async/v1/members")
+    @RequestDeadline("${querydsl.deadline.v1-members:2000}")
+    public CompletableFuture<List<MemberTeamDto>> searchMemberV1Async(MemberSearchCondition condition) {
+        return asyncQueryExecutor.submit(() -> searchV1(condition));
+    }
+
+    @GetMapping("/async/v2/members")
+    @RequestDeadline("${querydsl.deadline.v2-members:3000}")
+    public CompletableFuture<Page<MemberTeamDto>> searchMemberV2Async(MemberSearchCondition condition, Pageable pageable) {
+        return asyncQueryExecutor.submit(() -> memberSearchRouter.search().searchPageSimple(condition, pageable));
+    }
+
+    @GetMapping("/async/v3/members")
+    @RequestDeadline("${querydsl.deadline.v3-members:3000}")
+    public CompletableFuture<Page<MemberTeamDto>> searchMemberV3Async(MemberSearchCondition condition, Pageable pageable) {
+        return asyncQueryExecutor.submit(() -> memberSearchRouter.search().searchPageComplex(condition, pageable));
+    }
+
+    // v1은 순수 JPA 리포지토리로 검색한다. (샤드 모드에서는 샤드)
+    private List<MemberTeamDto> searchV1(MemberSearchCondition condition) {
+        return memberSearchRouter.isSharded()
+                ? memberSearchRouter.search().search(condition)
+                : memberJpaRepository.search(condition);
+    }
+
+    /**
+     * 데드라인이 지나 DB가 쿼리를 취소했거나, 쿼리 전에 이미 데드라인이 지난 경우
+     * 비동기 핸들러는 데드라인 안에 결과가 오지 않은 경우(TimeoutException)도 포함
+     */
+    @ExceptionHandler({javax.persistence.QueryTimeoutException.class,
+            org.springframework.dao.QueryTimeoutException.class,
+            QueryDeadlineExceededException.class,
+            TimeoutException.class})
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public String deadlineExceeded(Exception e) {
+        return e instanceof TimeoutException ? "request deadline exceeded" : e.getMessage();
     }
 }
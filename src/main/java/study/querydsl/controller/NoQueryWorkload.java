@@ -0,0 +1,16 @@
+package study.querydsl.controller;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 클래스에 붙은 @QueryWorkload를 이 핸들러에서는 적용하지 않는다.
+ * 쿼리를 워커 스레드에서 실행하고 워커가 쿼리마다 예산을 받는 핸들러용 (배치 검색)
+ * 요청 스레드가 예산을 들고 기다리기만 하면 그만큼 다른 검색이 들어오지 못한다.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface NoQueryWorkload {
+}
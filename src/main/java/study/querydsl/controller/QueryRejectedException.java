@@ -0,0 +1,15 @@
+package study.querydsl.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * 비동기 검색 큐가 가득 차서 바로 거절한 경우
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class QueryRejectedException extends RuntimeException {
+
+    public QueryRejectedException(int queueCapacity) {
+        super("query queue is full (capacity " + queueCapacity + ")");
+    }
+}
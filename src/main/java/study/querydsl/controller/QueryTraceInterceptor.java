@@ -0,0 +1,41 @@
+package study.querydsl.controller;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import study.querydsl.repository.timing.QueryTrace;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * 요청 헤더 X-Query-Trace가 있으면 이 요청의 쿼리 구간별 시간을 모은다. (QueryTrace)
+ * 응답 헤더는 QueryTraceResponseAdvice가 붙인다.
+ * 비동기 핸들러는 결과를 다른 서블릿 스레드에서 다시 dispatch 하므로 요청 속성에 둔 같은 QueryTrace를 되살린다.
+ */
+@Component
+public class QueryTraceInterceptor implements AsyncHandlerInterceptor {
+
+    public static final String TRACE_HEADER = "X-Query-Trace";
+    private static final String TRACE_ATTRIBUTE = QueryTraceInterceptor.class.getName() + ".trace";
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        QueryTrace trace = (QueryTrace) request.getAttribute(TRACE_ATTRIBUTE);
+        if (trace != null) {
+            QueryTrace.restore(trace);
+        } else if (request.getHeader(TRACE_HEADER) != null) {
+            request.setAttribute(TRACE_ATTRIBUTE, QueryTrace.start());
+        }
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        QueryTrace.clear();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        QueryTrace.clear();
+    }
+}
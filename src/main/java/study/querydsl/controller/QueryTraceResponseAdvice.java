@@ -0,0 +1,38 @@
+package study.querydsl.controller;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+import study.querydsl.repository.timing.QueryTrace;
+
+/**
+ * 추적 중인 요청이면 본문을 쓰기 직전에 Server-Timing 헤더로 구간별 시간을 붙인다.
+ * ex) curl -H 'X-Query-Trace: 1' -i 'http://localhost:8080/v3/members?teamName=teamA'
+ *     Server-Timing: serialize;dur=0.041, translate;dur=0.012, jdbc;dur=1.204, hydrate;dur=0.087, map;dur=0.033, queries;desc="2"
+ * 본문을 쓴 뒤에는 헤더를 붙일 수 없으므로 인터셉터의 postHandle이 아닌 여기서 붙인다.
+ */
+@RestControllerAdvice
+public class QueryTraceResponseAdvice implements ResponseBodyAdvice<Object> {
+
+    public static final String SERVER_TIMING_HEADER = "Server-Timing";
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        QueryTrace trace = QueryTrace.current();
+        if (trace != null) {
+            response.getHeaders().add(SERVER_TIMING_HEADER, trace.toServerTiming());
+        }
+        return body;
+    }
+}
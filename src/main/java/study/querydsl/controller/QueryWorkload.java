@@ -0,0 +1,19 @@
+package study.querydsl.controller;
+
+import study.querydsl.scheduling.WorkloadClass;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 핸들러가 어느 워크로드 예산으로 실행될지 (QueryScheduler), 클래스에 붙이면 모든 핸들러에 적용된다.
+ * ex) @QueryWorkload(WorkloadClass.INTERACTIVE)
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface QueryWorkload {
+
+    WorkloadClass value();
+}
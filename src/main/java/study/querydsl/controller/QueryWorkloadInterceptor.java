@@ -0,0 +1,56 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import study.querydsl.scheduling.QueryScheduler;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * @QueryWorkload 핸들러는 QueryScheduler 예산을 받은 뒤에 실행하고, 요청이 끝나면 돌려준다.
+ * 데드라인 안에 예산을 받지 못하면 핸들러를 실행하지 않고 503 (WorkloadRejectedException)
+ * RequestDeadlineInterceptor 뒤에 등록해야 남은 데드라인만큼만 기다린다.
+ * 비동기 핸들러(CompletionStage 반환)는 AsyncQueryExecutor 워커가, @NoQueryWorkload 핸들러는 그 워커가
+ * 예산을 받으므로 여기서는 건너뛴다.
+ */
+@Component
+@RequiredArgsConstructor
+public class QueryWorkloadInterceptor implements HandlerInterceptor {
+
+    private static final String PERMIT_ATTRIBUTE = QueryWorkloadInterceptor.class.getName() + ".permit";
+
+    private final QueryScheduler queryScheduler;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!(handler instanceof HandlerMethod)) {
+            return true;
+        }
+        HandlerMethod handlerMethod = (HandlerMethod) handler;
+        if (CompletionStage.class.isAssignableFrom(handlerMethod.getMethod().getReturnType())
+                || handlerMethod.hasMethodAnnotation(NoQueryWorkload.class)) {
+            return true;
+        }
+        QueryWorkload workload = handlerMethod.getMethodAnnotation(QueryWorkload.class);
+        if (workload == null) {
+            workload = handlerMethod.getBeanType().getAnnotation(QueryWorkload.class);
+        }
+        if (workload != null) {
+            request.setAttribute(PERMIT_ATTRIBUTE, queryScheduler.acquire(workload.value()));
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        QueryScheduler.Permit permit = (QueryScheduler.Permit) request.getAttribute(PERMIT_ATTRIBUTE);
+        if (permit != null) {
+            request.removeAttribute(PERMIT_ATTRIBUTE);
+            permit.close();
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package study.querydsl.controller;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 핸들러별 데드라인(ms), 프로퍼티 플레이스홀더 사용 가능
+ * ex) @RequestDeadline("${querydsl.deadline.v1-members:2000}")
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RequestDeadline {
+
+    String value();
+}
@@ -0,0 +1,45 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import study.querydsl.repository.QueryDeadline;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.time.Duration;
+
+/**
+ * @RequestDeadline이 붙은 핸들러는 요청 시작 시점부터 데드라인을 건다. (QueryDeadline)
+ * 비동기 핸들러는 AsyncQueryExecutor가 워커로 넘기고, 서블릿 스레드의 값은 afterConcurrentHandlingStarted에서 지운다.
+ */
+@Component
+@RequiredArgsConstructor
+public class RequestDeadlineInterceptor implements AsyncHandlerInterceptor {
+
+    private final Environment environment;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (handler instanceof HandlerMethod) {
+            RequestDeadline deadline = ((HandlerMethod) handler).getMethodAnnotation(RequestDeadline.class);
+            if (deadline != null) {
+                long millis = Long.parseLong(environment.resolvePlaceholders(deadline.value()));
+                QueryDeadline.set(Duration.ofMillis(millis));
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        QueryDeadline.clear();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        QueryDeadline.clear();
+    }
+}
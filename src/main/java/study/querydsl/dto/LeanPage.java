@@ -0,0 +1,37 @@
+package study.querydsl.dto;
+
+import lombok.Getter;
+import org.springframework.data.domain.Page;
+
+import java.util.List;
+
+/**
+ * 가벼운 페이지 응답 (?lean)
+ *
+ * PageImpl을 그대로 내보내면 pageable / sort 메타데이터 그래프 전체가 직렬화된다.
+ * 클라이언트가 쓰는 것은 content, total, page, size, 다음 페이지 토큰뿐이므로 그것만 담는다.
+ * 직렬화는 LeanPageJsonComponent가 직접 쓴다.
+ */
+@Getter
+public class LeanPage<T> {
+
+    private final List<T> content;
+    private final long total;
+    private final int page;
+    private final int size;
+    // 다음 페이지 번호, 마지막 페이지면 null
+    private final String nextToken;
+
+    public LeanPage(List<T> content, long total, int page, int size, String nextToken) {
+        this.content = content;
+        this.total = total;
+        this.page = page;
+        this.size = size;
+        this.nextToken = nextToken;
+    }
+
+    public static <T> LeanPage<T> of(Page<T> page) {
+        return new LeanPage<>(page.getContent(), page.getTotalElements(), page.getNumber(), page.getSize(),
+                page.hasNext() ? String.valueOf(page.getNumber() + 1) : null);
+    }
+}
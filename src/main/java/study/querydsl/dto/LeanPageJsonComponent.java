@@ -0,0 +1,104 @@
+package study.querydsl.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import org.springframework.boot.jackson.JsonComponent;
+
+import java.io.IOException;
+
+/**
+ * LeanPage 직렬화 (?lean 응답에만 쓰인다)
+ *
+ * 빈 프로퍼티 탐색 없이 필드를 순서대로 직접 쓴다.
+ * 필드 이름은 미리 인코딩해 둔 SerializedString을 재사용한다.
+ * content의 MemberTeamDto도 여기서 직접 쓰고, 출력은 기본 직렬화와 같다. (필드 순서, null 포함)
+ * MemberTeamDto serializer를 따로 등록하지 않으므로 v1 ~ v3 등 다른 응답은 기본(리플렉션) 직렬화 그대로다.
+ */
+@JsonComponent
+public class LeanPageJsonComponent {
+
+    private static final SerializedString CONTENT = new SerializedString("content");
+    private static final SerializedString TOTAL = new SerializedString("total");
+    private static final SerializedString PAGE = new SerializedString("page");
+    private static final SerializedString SIZE = new SerializedString("size");
+    private static final SerializedString NEXT_TOKEN = new SerializedString("nextToken");
+
+    private static final SerializedString MEMBER_ID = new SerializedString("memberId");
+    private static final SerializedString USERNAME = new SerializedString("username");
+    private static final SerializedString AGE = new SerializedString("age");
+    private static final SerializedString TEAM_ID = new SerializedString("teamId");
+    private static final SerializedString TEAM_NAME = new SerializedString("teamName");
+
+    @SuppressWarnings("rawtypes")
+    public static class LeanPageSerializer extends StdSerializer<LeanPage> {
+
+        public LeanPageSerializer() {
+            super(LeanPage.class);
+        }
+
+        @Override
+        public void serialize(LeanPage page, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject();
+            gen.writeFieldName(CONTENT);
+            gen.writeStartArray();
+            // MemberTeamDto가 아니면 보통 content는 한 타입이므로 직전 타입의 serializer를 재사용한다.
+            Class<?> lastType = null;
+            JsonSerializer<Object> serializer = null;
+            for (Object element : page.getContent()) {
+                if (element == null) {
+                    gen.writeNull();
+                    continue;
+                }
+                if (element instanceof MemberTeamDto) {
+                    writeMemberTeamDto((MemberTeamDto) element, gen);
+                    continue;
+                }
+                if (element.getClass() != lastType) {
+                    lastType = element.getClass();
+                    serializer = provider.findValueSerializer(lastType);
+                }
+                serializer.serialize(element, gen, provider);
+            }
+            gen.writeEndArray();
+            gen.writeFieldName(TOTAL);
+            gen.writeNumber(page.getTotal());
+            gen.writeFieldName(PAGE);
+            gen.writeNumber(page.getPage());
+            gen.writeFieldName(SIZE);
+            gen.writeNumber(page.getSize());
+            gen.writeFieldName(NEXT_TOKEN);
+            if (page.getNextToken() == null) {
+                gen.writeNull();
+            } else {
+                gen.writeString(page.getNextToken());
+            }
+            gen.writeEndObject();
+        }
+    }
+
+    private static void writeMemberTeamDto(MemberTeamDto dto, JsonGenerator gen) throws IOException {
+        gen.writeStartObject();
+        gen.writeFieldName(MEMBER_ID);
+        writeLong(gen, dto.getMemberId());
+        gen.writeFieldName(USERNAME);
+        gen.writeString(dto.getUsername());
+        gen.writeFieldName(AGE);
+        gen.writeNumber(dto.getAge());
+        gen.writeFieldName(TEAM_ID);
+        writeLong(gen, dto.getTeamId());
+        gen.writeFieldName(TEAM_NAME);
+        gen.writeString(dto.getTeamName());
+        gen.writeEndObject();
+    }
+
+    private static void writeLong(JsonGenerator gen, Long value) throws IOException {
+        if (value == null) {
+            gen.writeNull();
+        } else {
+            gen.writeNumber(value);
+        }
+    }
+}
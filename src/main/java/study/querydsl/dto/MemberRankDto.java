@@ -0,0 +1,24 @@
+package study.querydsl.dto;
+
+import lombok.Data;
+
+// 팀 내 순위 (RANK / ROW_NUMBER OVER PARTITION BY team_id)
+@Data
+public class MemberRankDto {
+
+    private Long memberId;
+    private String username;
+    private int age;
+    private Long teamId;
+    private String teamName;
+    private long rank;
+
+    public MemberRankDto(Long memberId, String username, Integer age, Long teamId, String teamName, Long rank) {
+        this.memberId = memberId;
+        this.username = username;
+        this.age = age;
+        this.teamId = teamId;
+        this.teamName = teamName;
+        this.rank = rank;
+    }
+}
@@ -0,0 +1,24 @@
+package study.querydsl.dto;
+
+import lombok.Data;
+
+// 회원 나이와 소속 팀 평균 나이 (AVG OVER PARTITION BY team_id)
+@Data
+public class MemberTeamAgeDto {
+
+    private Long memberId;
+    private String username;
+    private int age;
+    private Long teamId;
+    private String teamName;
+    private double teamAvgAge;
+
+    public MemberTeamAgeDto(Long memberId, String username, Integer age, Long teamId, String teamName, Double teamAvgAge) {
+        this.memberId = memberId;
+        this.username = username;
+        this.age = age;
+        this.teamId = teamId;
+        this.teamName = teamName;
+        this.teamAvgAge = teamAvgAge;
+    }
+}
@@ -1,17 +1,34 @@
 package study.querydsl.entity;
 
 import lombok.*;
+import org.hibernate.Hibernate;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import study.querydsl.cache.SecondLevelCacheRegions;
 
 import javax.persistence.*;
 
 @Entity
+@Table(indexes = {
+        // member_id를 함께 두어 조건 + 정렬(tie-breaker) + id 페이징이 인덱스만으로 끝나게 한다. (deferred join)
+        @Index(name = "idx_member_username", columnList = "username, member_id"),
+        @Index(name = "idx_member_age", columnList = "age, member_id"),
+        @Index(name = "idx_member_team", columnList = "team_id, member_id")
+})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCacheRegions.MEMBER)
 @Getter
 @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id", "username", "age"}) // team이 들어가면 안된다.
 public class Member {
 
-    @Id @GeneratedValue
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "member_seq_generator")
+    @GenericGenerator(name = "member_seq_generator", strategy = "study.querydsl.entity.PooledSequenceGenerator",
+            parameters = @Parameter(name = "sequence_name", value = "member_seq"))
     @Column(name = "member_id")
     private Long id;
     private String username;
@@ -37,8 +54,19 @@ public class Member {
         }
     }
 
-    private void changeTeam(Team team) {
+    /**
+     * 연관관계 주인은 Member.team 이므로 DB 반영은 this.team 만으로 충분하다.
+     * 반대편 Team.members는 이미 로딩된 경우에만 맞춰주고, 로딩되지 않았다면 건드리지 않는다.
+     * (members.add() 한 번 때문에 팀 전체 회원 컬렉션을 로딩하지 않기 위해)
+     */
+    public void changeTeam(Team team) {
+        if (this.team != null && Hibernate.isInitialized(this.team)
+                && Hibernate.isInitialized(this.team.getMembers())) {
+            this.team.getMembers().remove(this);
+        }
         this.team = team;
-        team.getMembers().add(this);
+        if (team != null && Hibernate.isInitialized(team) && Hibernate.isInitialized(team.getMembers())) {
+            team.getMembers().add(this);
+        }
     }
 }
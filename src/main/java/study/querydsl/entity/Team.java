@@ -1,12 +1,23 @@
 package study.querydsl.entity;
 
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import study.querydsl.cache.SecondLevelCacheRegions;
+import study.querydsl.repository.TeamCacheInvalidator;
 
 import javax.persistence.*;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@Table(indexes = @Index(name = "idx_team_name", columnList = "name"))
+@EntityListeners(TeamCacheInvalidator.class)
+// 거의 바뀌지 않으므로 락 없이 갱신 시 무효화만 하는 NONSTRICT_READ_WRITE
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE, region = SecondLevelCacheRegions.TEAM)
 @Getter
 @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
@@ -14,12 +25,16 @@ import java.util.List;
 public class Team {
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "team_seq_generator")
+    @GenericGenerator(name = "team_seq_generator", strategy = "study.querydsl.entity.PooledSequenceGenerator",
+            parameters = @Parameter(name = "sequence_name", value = "team_seq"))
     @Column(name = "team_id")
     private Long id;
     private String name;
 
+    // 회원 이동과 동시에 읽혀도 예전 목록이 보이지 않도록 soft lock을 거는 READ_WRITE
     @OneToMany(mappedBy = "team")
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCacheRegions.TEAM_MEMBERS)
     private List<Member> members = new ArrayList<>();
 
     public Team(String name) {
@@ -0,0 +1,65 @@
+package study.querydsl.event;
+
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+/**
+ * 커밋된 insert / update / delete만 ChangeStream에 발행한다. (롤백된 변경은 구독자에게 가지 않는다.)
+ */
+class ChangeEventListener implements PostCommitInsertEventListener, PostCommitUpdateEventListener,
+        PostCommitDeleteEventListener {
+
+    private final ChangeStream changeStream;
+
+    ChangeEventListener(ChangeStream changeStream) {
+        this.changeStream = changeStream;
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        publish(event.getEntity(), event.getId(), ChangeType.INSERT);
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        publish(event.getEntity(), event.getId(), ChangeType.UPDATE);
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        publish(event.getEntity(), event.getId(), ChangeType.DELETE);
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+
+    // 대상 엔티티만 커밋 후 처리를 등록한다.
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        Class<?> type = persister.getMappedClass();
+        return type == Member.class || type == Team.class;
+    }
+
+    private void publish(Object entity, Object id, ChangeType type) {
+        ChangedEntity changed = ChangedEntity.of(entity);
+        if (changed != null && id instanceof Long) {
+            changeStream.publish(ChangeRecord.row(changed, type, (Long) id));
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package study.querydsl.event;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 변경 레코드 - 엔티티 상태는 담지 않고 "무엇이 바뀌었는지"만 담는다.
+ * 단건 변경은 fromId == toId, 벌크 변경은 영향받았을 수 있는 id 범위 [fromId, toId]
+ */
+@Getter
+@ToString
+public class ChangeRecord {
+
+    private final ChangedEntity entity;
+    private final ChangeType type;
+    private final long fromId;
+    private final long toId;
+
+    private ChangeRecord(ChangedEntity entity, ChangeType type, long fromId, long toId) {
+        this.entity = entity;
+        this.type = type;
+        this.fromId = fromId;
+        this.toId = toId;
+    }
+
+    public static ChangeRecord row(ChangedEntity entity, ChangeType type, long id) {
+        return new ChangeRecord(entity, type, id, id);
+    }
+
+    public static ChangeRecord range(ChangedEntity entity, ChangeType type, long fromId, long toId) {
+        return new ChangeRecord(entity, type, fromId, toId);
+    }
+
+    public boolean covers(long id) {
+        return fromId <= id && id <= toId;
+    }
+}
@@ -0,0 +1,78 @@
+package study.querydsl.event;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 락 없는 링 버퍼
+ *
+ * 생산자는 시퀀스를 getAndIncrement()로 받고 슬롯에 (시퀀스, 레코드)를 써 넣기만 한다.
+ * 소비자가 얼마나 뒤처졌는지 보지 않으므로 쓰기 쪽은 절대 기다리지 않는다.
+ * 소비자는 각자 커서를 들고 슬롯의 시퀀스로 상태를 판단한다.
+ * - 슬롯 시퀀스 < 커서 : 아직 발행되지 않음 (여기서 멈춘다)
+ * - 슬롯 시퀀스 > 커서 : 한 바퀴 이상 뒤처져 덮어써짐 (남아 있는 가장 오래된 시퀀스로 건너뛰고 건너뛴 수를 센다)
+ */
+class ChangeRingBuffer {
+
+    private final AtomicReferenceArray<Slot> slots;
+    private final int mask;
+    private final AtomicLong next = new AtomicLong();
+
+    ChangeRingBuffer(int capacity) {
+        // 인덱스를 sequence & mask로 구하도록 2의 거듭제곱으로 올린다.
+        int size = 2;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    void publish(ChangeRecord record) {
+        long sequence = next.getAndIncrement();
+        slots.set((int) (sequence & mask), new Slot(sequence, record));
+    }
+
+    // 다음에 발행될 시퀀스 (새 구독자의 시작 위치)
+    long head() {
+        return next.get();
+    }
+
+    /**
+     * cursor부터 최대 max건을 batch에 담는다.
+     * @return 다음 커서. 덮어써져 건너뛴 수는 skipped[0]에 더한다.
+     */
+    long poll(long cursor, int max, List<ChangeRecord> batch, long[] skipped) {
+        long sequence = cursor;
+        while (batch.size() < max) {
+            Slot slot = slots.get((int) (sequence & mask));
+            if (slot == null || slot.sequence < sequence) {
+                break;
+            }
+            if (slot.sequence > sequence) {
+                long oldest = Math.max(sequence + 1, next.get() - slots.length());
+                skipped[0] += oldest - sequence;
+                sequence = oldest;
+                continue;
+            }
+            batch.add(slot.record);
+            sequence++;
+        }
+        return sequence;
+    }
+
+    int capacity() {
+        return slots.length();
+    }
+
+    private static final class Slot {
+        private final long sequence;
+        private final ChangeRecord record;
+
+        private Slot(long sequence, ChangeRecord record) {
+            this.sequence = sequence;
+            this.record = record;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package study.querydsl.event;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Member / Team 변경 스트림
+ *
+ * ChangeEventIntegrator(Hibernate 커밋 후 insert / update / delete)와 벌크 update / delete 경로가 발행하고,
+ * 캐시나 읽기 모델은 subscribe()로 변경 레코드를 배치 단위로 받는다.
+ * 발행은 링 버퍼 슬롯 하나를 쓰는 것뿐이라 쓰기 경로를 막지 않는다.
+ * 구독은 구독 시점 이후의 레코드부터 받는다.
+ */
+@Component
+public class ChangeStream {
+
+    private final ChangeRingBuffer buffer;
+    private final List<ChangeSubscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    public ChangeStream(@Value("${querydsl.change-stream.capacity:8192}") int capacity) {
+        this.buffer = new ChangeRingBuffer(capacity);
+    }
+
+    public void publish(ChangeRecord record) {
+        buffer.publish(record);
+    }
+
+    /**
+     * 벌크 연산은 Hibernate 이벤트가 없으므로 repository가 직접 부른다.
+     * 트랜잭션 안이면 커밋된 뒤에, 아니면 바로 발행한다.
+     */
+    public void publishAfterCommit(List<ChangeRecord> records) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            records.forEach(this::publish);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                records.forEach(ChangeStream.this::publish);
+            }
+        });
+    }
+
+    public ChangeSubscription subscribe(String name, int maxBatch, Consumer<List<ChangeRecord>> handler) {
+        ChangeSubscription subscription = new ChangeSubscription(name, buffer, maxBatch, handler);
+        subscriptions.add(subscription);
+        subscription.start();
+        return subscription;
+    }
+
+    public void unsubscribe(ChangeSubscription subscription) {
+        subscription.close();
+        subscriptions.remove(subscription);
+    }
+
+    public long getPublished() {
+        return buffer.head();
+    }
+
+    public int getCapacity() {
+        return buffer.capacity();
+    }
+
+    @PreDestroy
+    public void close() {
+        subscriptions.forEach(ChangeSubscription::close);
+        subscriptions.clear();
+    }
+}
@@ -0,0 +1,89 @@
+package study.querydsl.event;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * 구독자 하나 - 전용 스레드가 링 버퍼를 자기 커서로 읽어 배치 단위로 handler에 넘긴다.
+ * handler가 느리면 이 구독자만 뒤처지고, 한 바퀴 이상 밀린 레코드는 건너뛴다. (getSkipped)
+ */
+@Slf4j
+public class ChangeSubscription implements AutoCloseable {
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final String name;
+    private final ChangeRingBuffer buffer;
+    private final int maxBatch;
+    private final Consumer<List<ChangeRecord>> handler;
+    private final Thread thread;
+    // 구독 시점의 head - 스레드가 뜨기 전에 발행된 레코드도 놓치지 않도록 생성 시 잡는다.
+    private final long startCursor;
+
+    private final AtomicLong consumed = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private volatile boolean running = true;
+
+    ChangeSubscription(String name, ChangeRingBuffer buffer, int maxBatch, Consumer<List<ChangeRecord>> handler) {
+        this.name = name;
+        this.buffer = buffer;
+        this.maxBatch = maxBatch;
+        this.handler = handler;
+        this.startCursor = buffer.head();
+        this.thread = new Thread(this::consume, "change-" + name);
+        this.thread.setDaemon(true);
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    private void consume() {
+        long cursor = startCursor;
+        List<ChangeRecord> batch = new ArrayList<>(maxBatch);
+        long[] skippedNow = new long[1];
+        while (running) {
+            batch.clear();
+            skippedNow[0] = 0;
+            cursor = buffer.poll(cursor, maxBatch, batch, skippedNow);
+            if (skippedNow[0] > 0) {
+                skipped.addAndGet(skippedNow[0]);
+                log.warn("change subscriber {} lagged, skipped {} records", name, skippedNow[0]);
+            }
+            if (batch.isEmpty()) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+                continue;
+            }
+            try {
+                handler.accept(batch);
+            } catch (Exception e) {
+                log.warn("change subscriber {} failed on {} records", name, batch.size(), e);
+            }
+            consumed.addAndGet(batch.size());
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getConsumed() {
+        return consumed.get();
+    }
+
+    public long getSkipped() {
+        return skipped.get();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(thread);
+    }
+}
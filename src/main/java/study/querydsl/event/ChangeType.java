@@ -0,0 +1,7 @@
+package study.querydsl.event;
+
+public enum ChangeType {
+    INSERT, UPDATE, DELETE,
+    // 벌크 update / delete - 영향받은 id 범위만 알 수 있다.
+    BULK_UPDATE, BULK_DELETE
+}
@@ -0,0 +1,19 @@
+package study.querydsl.event;
+
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+public enum ChangedEntity {
+    MEMBER, TEAM;
+
+    // 변경 스트림 대상이 아니면 null
+    public static ChangedEntity of(Object entity) {
+        if (entity instanceof Member) {
+            return MEMBER;
+        }
+        if (entity instanceof Team) {
+            return TEAM;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,106 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.types.Constant;
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.SubQueryExpression;
+import com.querydsl.core.types.TemplateExpression;
+import com.querydsl.core.types.Visitor;
+import com.querydsl.jpa.impl.JPAQuery;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 쓰이지 않는 left join 제거
+ *
+ * 조인 없이 쿼리를 만든 뒤 leftJoinIfReferenced()를 부르면
+ * select / where / group by / having / order by 어디에서도 alias를 참조하지 않는 경우 조인을 붙이지 않는다.
+ * @ManyToOne left join은 결과 건수를 바꾸지 않으므로 빼도 결과가 같다.
+ * (member.team.id 처럼 FK만 쓰는 경로는 root가 member 이므로 조인이 필요 없다.)
+ */
+final class JoinElimination {
+
+    private JoinElimination() {
+    }
+
+    static <T, P> JPAQuery<T> leftJoinIfReferenced(JPAQuery<T> query, EntityPath<P> target, Path<P> alias) {
+        if (references(query.getMetadata(), alias)) {
+            query.leftJoin(target, alias);
+        }
+        return query;
+    }
+
+    static boolean references(QueryMetadata metadata, Path<?> alias) {
+        Set<Path<?>> roots = new HashSet<>();
+        collect(metadata.getProjection(), roots);
+        collect(metadata.getWhere(), roots);
+        collect(metadata.getHaving(), roots);
+        metadata.getGroupBy().forEach(expression -> collect(expression, roots));
+        for (OrderSpecifier<?> order : metadata.getOrderBy()) {
+            collect(order.getTarget(), roots);
+        }
+        return roots.contains(alias);
+    }
+
+    private static void collect(Expression<?> expression, Set<Path<?>> roots) {
+        if (expression != null) {
+            expression.accept(RootCollector.INSTANCE, roots);
+        }
+    }
+
+    private static final class RootCollector implements Visitor<Void, Set<Path<?>>> {
+
+        private static final RootCollector INSTANCE = new RootCollector();
+
+        @Override
+        public Void visit(Constant<?> expr, Set<Path<?>> roots) {
+            return null;
+        }
+
+        @Override
+        public Void visit(FactoryExpression<?> expr, Set<Path<?>> roots) {
+            expr.getArgs().forEach(arg -> collect(arg, roots));
+            return null;
+        }
+
+        @Override
+        public Void visit(Operation<?> expr, Set<Path<?>> roots) {
+            expr.getArgs().forEach(arg -> collect(arg, roots));
+            return null;
+        }
+
+        @Override
+        public Void visit(ParamExpression<?> expr, Set<Path<?>> roots) {
+            return null;
+        }
+
+        @Override
+        public Void visit(Path<?> expr, Set<Path<?>> roots) {
+            roots.add(expr.getRoot());
+            return null;
+        }
+
+        // 서브쿼리는 자기 from 절을 따로 가지므로 바깥 조인과 상관없다.
+        @Override
+        public Void visit(SubQueryExpression<?> expr, Set<Path<?>> roots) {
+            return null;
+        }
+
+        @Override
+        public Void visit(TemplateExpression<?> expr, Set<Path<?>> roots) {
+            for (Object arg : expr.getArgs()) {
+                if (arg instanceof Expression) {
+                    collect((Expression<?>) arg, roots);
+                }
+            }
+            return null;
+        }
+    }
+}
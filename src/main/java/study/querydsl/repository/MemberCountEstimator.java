@@ -0,0 +1,183 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.scheduling.QueryScheduler;
+import study.querydsl.scheduling.WorkloadClass;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 검색 결과 건수 추정 (통계 기반)
+ *
+ * 회원 수, 팀별 회원 수, 나이 히스토그램, username 종류 수를 들고 있다가
+ * 조건마다 선택도를 곱해 건수를 추정한다. (조건끼리 독립이라고 가정)
+ * - teamName : 해당 팀들의 회원 수 / 전체
+ * - ageGoe / ageLoe : 히스토그램 구간 합 / 전체
+ * - username : 1 / username 종류 수
+ *
+ * 통계는 처음 쓸 때 읽고, refresh-interval이 지나면 백그라운드에서 다시 읽는다. (그 사이에는 이전 통계를 쓴다.)
+ * 백그라운드 갱신은 전체 스캔이므로 QueryScheduler의 BULK 예산으로 실행한다.
+ * 추정값이 exact-below보다 작으면 정확한 count가 싸므로 호출하는 쪽에서 count 쿼리를 실행한다.
+ */
+@Slf4j
+@Component
+public class MemberCountEstimator {
+
+    private final JPAQueryFactory queryFactory;
+    private final TeamNameCache teamNameCache;
+    private final QueryScheduler queryScheduler;
+    private final Duration refreshInterval;
+    private final long exactBelow;
+
+    private final ExecutorService refresher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "member-count-stats");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private volatile Statistics statistics;
+
+    public MemberCountEstimator(EntityManager em, TeamNameCache teamNameCache, QueryScheduler queryScheduler,
+                                @Value("${querydsl.estimate.refresh-interval:60s}") Duration refreshInterval,
+                                @Value("${querydsl.estimate.exact-below:10000}") long exactBelow) {
+        this.queryFactory = new JPAQueryFactory(em);
+        this.teamNameCache = teamNameCache;
+        this.queryScheduler = queryScheduler;
+        this.refreshInterval = refreshInterval;
+        this.exactBelow = exactBelow;
+    }
+
+    public long getExactBelow() {
+        return exactBelow;
+    }
+
+    public long estimate(MemberSearchCondition condition) {
+        Statistics stats = statistics();
+        if (stats.total == 0) {
+            return 0;
+        }
+        double estimate = stats.total;
+
+        if (StringUtils.hasText(condition.getUsername())) {
+            estimate /= Math.max(1, stats.distinctUsernames);
+        }
+        if (StringUtils.hasText(condition.getTeamName())) {
+            long teamMembers = 0;
+            for (Long teamId : teamNameCache.idsOf(condition.getTeamName())) {
+                teamMembers += stats.membersByTeam.getOrDefault(teamId, 0L);
+            }
+            estimate *= (double) teamMembers / stats.total;
+        }
+        if (condition.getAgeGoe() != null || condition.getAgeLoe() != null) {
+            int from = condition.getAgeGoe() == null ? Integer.MIN_VALUE : condition.getAgeGoe();
+            int to = condition.getAgeLoe() == null ? Integer.MAX_VALUE : condition.getAgeLoe();
+            long inRange = from > to ? 0 : stats.ageHistogram.subMap(from, true, to, true).values().stream()
+                    .mapToLong(Long::longValue)
+                    .sum();
+            estimate *= (double) inRange / stats.total;
+        }
+        return Math.round(estimate);
+    }
+
+    // 통계를 바로 다시 읽는다. (대량 적재 직후 등)
+    public void refresh() {
+        statistics = load();
+    }
+
+    private Statistics statistics() {
+        Statistics current = statistics;
+        if (current == null) {
+            current = load();
+            statistics = current;
+        } else if (System.nanoTime() - current.loadedAt > refreshInterval.toNanos()
+                && refreshing.compareAndSet(false, true)) {
+            refresher.execute(() -> {
+                try {
+                    statistics = queryScheduler.call(WorkloadClass.BULK, this::load);
+                } catch (Exception e) {
+                    log.warn("member count statistics refresh failed", e);
+                } finally {
+                    refreshing.set(false);
+                }
+            });
+        }
+        return current;
+    }
+
+    private Statistics load() {
+        long startedAt = System.nanoTime();
+
+        Map<Long, Long> membersByTeam = new HashMap<>();
+        long total = 0;
+        List<Tuple> teamCounts = queryFactory
+                .select(member.team.id, member.id.count())
+                .from(member)
+                .groupBy(member.team.id)
+                .fetch();
+        for (Tuple row : teamCounts) {
+            Long count = row.get(member.id.count());
+            membersByTeam.put(row.get(member.team.id), count);
+            total += count;
+        }
+
+        NavigableMap<Integer, Long> ageHistogram = new TreeMap<>();
+        List<Tuple> ageCounts = queryFactory
+                .select(member.age, member.id.count())
+                .from(member)
+                .groupBy(member.age)
+                .fetch();
+        for (Tuple row : ageCounts) {
+            ageHistogram.put(row.get(member.age), row.get(member.id.count()));
+        }
+
+        Long distinctUsernames = queryFactory
+                .select(member.username.countDistinct())
+                .from(member)
+                .fetchOne();
+
+        log.debug("member count statistics loaded: total={}, teams={}, ages={} ({} ms)", total,
+                membersByTeam.size(), ageHistogram.size(), (System.nanoTime() - startedAt) / 1_000_000);
+        return new Statistics(total, membersByTeam, ageHistogram,
+                distinctUsernames == null ? 0 : distinctUsernames, System.nanoTime());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdown();
+    }
+
+    private static class Statistics {
+        private final long total;
+        private final Map<Long, Long> membersByTeam;
+        private final NavigableMap<Integer, Long> ageHistogram;
+        private final long distinctUsernames;
+        private final long loadedAt;
+
+        private Statistics(long total, Map<Long, Long> membersByTeam, NavigableMap<Integer, Long> ageHistogram,
+                           long distinctUsernames, long loadedAt) {
+            this.total = total;
+            this.membersByTeam = membersByTeam;
+            this.ageHistogram = ageHistogram;
+            this.distinctUsernames = distinctUsernames;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Expression;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 검색 결과 필드 선택 (?fields=username,age)
+ *
+ * 요청한 필드의 컬럼만 select 하고, 결과도 그 필드만 담은 Map으로 만든다.
+ * teamId / teamName은 member.team_id 한 컬럼으로 충분하다. (teamName은 TeamNameCache에서 채운다.)
+ * 알 수 없는 필드는 UnsupportedFieldException (400)
+ */
+public final class MemberFields {
+
+    public enum Field {
+        MEMBER_ID("memberId", member.id),
+        USERNAME("username", member.username),
+        AGE("age", member.age),
+        TEAM_ID("teamId", member.team.id),
+        TEAM_NAME("teamName", member.team.id);
+
+        private final String name;
+        private final Expression<?> column;
+
+        Field(String name, Expression<?> column) {
+            this.name = name;
+            this.column = column;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    private static final Map<String, Field> BY_NAME = Arrays.stream(Field.values())
+            .collect(Collectors.toMap(Field::getName, Function.identity()));
+
+    private final List<Field> fields;
+
+    private MemberFields(List<Field> fields) {
+        this.fields = fields;
+    }
+
+    public static MemberFields parse(String fields) {
+        Set<Field> parsed = new LinkedHashSet<>();
+        for (String name : fields.split(",")) {
+            String trimmed = name.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            Field field = BY_NAME.get(trimmed);
+            if (field == null) {
+                throw new UnsupportedFieldException("unknown field: " + trimmed + " (allowed: " + BY_NAME.keySet() + ")");
+            }
+            parsed.add(field);
+        }
+        if (parsed.isEmpty()) {
+            throw new UnsupportedFieldException("no fields requested (allowed: " + BY_NAME.keySet() + ")");
+        }
+        return new MemberFields(new ArrayList<>(parsed));
+    }
+
+    public List<Field> getFields() {
+        return fields;
+    }
+
+    // select 절 - 같은 컬럼은 한 번만
+    Expression<?>[] columns() {
+        return fields.stream()
+                .map(field -> field.column)
+                .distinct()
+                .toArray(Expression<?>[]::new);
+    }
+
+    Map<String, Object> toMap(Tuple row, TeamNameCache teamNameCache) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (Field field : fields) {
+            Object value = row.get(field.column);
+            result.put(field.name, field == Field.TEAM_NAME ? teamNameCache.nameOf((Long) value) : value);
+        }
+        return result;
+    }
+}
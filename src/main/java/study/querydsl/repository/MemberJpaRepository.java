@@ -1,10 +1,17 @@
 package study.querydsl.repository;
 
 import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.Tuple;
 import com.querydsl.core.types.Predicate;
 import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.Hibernate;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.Status;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 import org.springframework.util.StringUtils;
 import study.querydsl.dto.MemberSearchCondition;
@@ -13,11 +20,26 @@ import study.querydsl.dto.QMemberTeamDto;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.QMember;
 import study.querydsl.entity.QTeam;
+import study.querydsl.entity.Team;
+import study.querydsl.event.ChangeRecord;
+import study.querydsl.event.ChangeStream;
+import study.querydsl.event.ChangeType;
+import study.querydsl.event.ChangedEntity;
+import study.querydsl.repository.timing.QueryStage;
+import study.querydsl.repository.timing.QueryTimings;
+import study.querydsl.repository.timing.TimedJPAQueryFactory;
+import study.querydsl.repository.writebehind.MemberWriteBehindBuffer;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import static study.querydsl.entity.QMember.member;
 import static study.querydsl.entity.QTeam.team;
@@ -27,14 +49,25 @@ public class MemberJpaRepository {
 
     private final EntityManager em;
     private final JPAQueryFactory queryFactory;
+    private final TeamNameCache teamNameCache;
+    private final ChangeStream changeStream;
+    private final QueryTimings timings;
+
+    // querydsl.write-behind.enabled=true 일 때만 주입된다.
+    private MemberWriteBehindBuffer writeBehindBuffer;
 
     /**
      * 방법1
      * 테스트 코드를 짤 때 바로 주입받을 수 있다는 장점이 있다.
      */
-    public MemberJpaRepository(EntityManager em){
+    public MemberJpaRepository(EntityManager em, TeamNameCache teamNameCache, ChangeStream changeStream,
+                               QueryTimings timings){
         this.em = em;
-        queryFactory = new JPAQueryFactory(em);
+        // select 쿼리는 구간별 시간을 QueryTimings에 기록한다.
+        queryFactory = new TimedJPAQueryFactory(em, timings);
+        this.teamNameCache = teamNameCache;
+        this.changeStream = changeStream;
+        this.timings = timings;
     }
 
     /**
@@ -49,10 +82,32 @@ public class MemberJpaRepository {
         this.queryFactory = queryFactory;
     } */
 
+    @Autowired(required = false)
+    public void setWriteBehindBuffer(MemberWriteBehindBuffer writeBehindBuffer) {
+        this.writeBehindBuffer = writeBehindBuffer;
+    }
+
+    /**
+     * write-behind 모드에서는 신규 Member를 큐에 넣고 바로 반환한다.
+     * 이 경우 id는 배치가 커밋된 뒤에 채워지므로, 바로 조회해야 하면 flush()를 먼저 호출한다.
+     * 배치는 별도 트랜잭션에서 커밋되므로 호출자의 트랜잭션이 롤백돼도 insert는 되돌아가지 않는다.
+     */
     public void save(Member member) {
+        if (writeBehindBuffer != null && member.getId() == null) {
+            writeBehindBuffer.enqueue(member);
+            return;
+        }
         em.persist(member);
     }
 
+    // write-behind 모드에서 save()로 넣은 Member가 모두 커밋될 때까지 기다린다.
+    // 그 중 insert에 실패한 건이 있으면 MemberWriteBehindException
+    public void flush() {
+        if (writeBehindBuffer != null) {
+            writeBehindBuffer.flush();
+        }
+    }
+
     public Optional<Member> findById(Long id) {
         Member member = em.find(Member.class, id);
         return Optional.ofNullable(member);
@@ -83,6 +138,63 @@ public class MemberJpaRepository {
                 .fetch();
     }
 
+    /**
+     * 회원들을 teamId 팀으로 한 번에 이동 (벌크 update)
+     * Team.members 컬렉션을 로딩하지 않으므로 팀 크기와 상관없이 update 한 번이다.
+     * 벌크 연산은 영속성 컨텍스트를 무시하므로, 이미 로딩돼 있던 대상 Member와
+     * 로딩된 members 컬렉션을 가진 이전 팀 / 대상 팀만 refresh 한다. (호출자의 다른 엔티티는 그대로 둔다)
+     * 2차 캐시의 Member / Team.members 리전은 Hibernate가 벌크 update 실행 시 비운다.
+     * Hibernate 이벤트가 나가지 않으므로 변경 스트림에는 직접 발행한다.
+     */
+    public long moveMembersToTeam(List<Long> memberIds, Long teamId) {
+        if (memberIds.isEmpty()) {
+            return 0;
+        }
+        // 벌크 update 전에 쓰기 지연된 변경을 내보내야 refresh로 잃어버리지 않는다.
+        em.flush();
+        List<Member> loadedMembers = managedMembers(memberIds);
+        Team targetTeam = em.getReference(Team.class, teamId);
+
+        long count = queryFactory
+                .update(member)
+                .set(member.team, targetTeam)
+                .where(member.id.in(memberIds))
+                .execute();
+
+        Set<Team> staleTeams = new LinkedHashSet<>();
+        staleTeams.add(targetTeam);
+        for (Member loaded : loadedMembers) {
+            if (loaded.getTeam() != null) {
+                staleTeams.add(loaded.getTeam());
+            }
+            em.refresh(loaded);
+        }
+        for (Team stale : staleTeams) {
+            if (Hibernate.isInitialized(stale) && Hibernate.isInitialized(stale.getMembers())) {
+                em.refresh(stale);
+            }
+        }
+        changeStream.publishAfterCommit(memberIds.stream()
+                .map(id -> ChangeRecord.row(ChangedEntity.MEMBER, ChangeType.UPDATE, id))
+                .collect(Collectors.toList()));
+        return count;
+    }
+
+    // 영속성 컨텍스트에 이미 올라와 있는 Member 중 memberIds에 해당하는 것 (조회 쿼리 없음)
+    private List<Member> managedMembers(List<Long> memberIds) {
+        Set<Long> ids = new HashSet<>(memberIds);
+        List<Member> result = new ArrayList<>();
+        for (Map.Entry<Object, EntityEntry> entry
+                : em.unwrap(SessionImplementor.class).getPersistenceContext().reentrantSafeEntityEntries()) {
+            if (entry.getKey() instanceof Member
+                    && entry.getValue().getStatus() == Status.MANAGED
+                    && ids.contains(entry.getValue().getId())) {
+                result.add((Member) entry.getKey());
+            }
+        }
+        return result;
+    }
+
     public List<MemberTeamDto> searchByBuilder(MemberSearchCondition condition) {
 
         BooleanBuilder builder = new BooleanBuilder();
@@ -120,23 +232,34 @@ public class MemberJpaRepository {
         return result;
     }
 
+    /**
+     * teamName 조건은 TeamNameCache로 member.team_id in (...) 으로 바꾸고
+     * teamName 컬럼도 캐시에서 채우므로 team 조인이 필요 없다.
+     */
     public List<MemberTeamDto> search(MemberSearchCondition condition) {
-        return queryFactory
-                .select(new QMemberTeamDto(
-                        member.id.as("memberId"),
-                        member.username,
-                        member.age,
-                        team.id.as("teamId"),
-                        team.name.as("teamName")))
+        JPAQuery<Tuple> query = queryFactory
+                .select(member.id, member.username, member.age, member.team.id)
                 .from(member)
-                .leftJoin(member.team, team)
                 .where(
                         usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
+                        teamIdIn(condition.getTeamName()),
                         ageGoe(condition.getAgeGoe()),
                         ageLoe(condition.getAgeLoe())
-                )
-                .fetch();
+                );
+
+        // 요청 데드라인이 있으면 남은 시간을 쿼리 타임아웃으로 건다.
+        List<Tuple> rows = QueryDeadline.apply(query).fetch();
+        return timings.time(QueryStage.MAP, () -> rows.stream()
+                .map(row -> {
+                    Long teamId = row.get(member.team.id);
+                    return new MemberTeamDto(
+                            row.get(member.id),
+                            row.get(member.username),
+                            row.get(member.age),
+                            teamId,
+                            teamNameCache.nameOf(teamId));
+                })
+                .collect(Collectors.toList()));
     }
 
     // Predicate보다는 BooleanExpression을 쓰자(조합할 수 있는 장점때문에)
@@ -144,8 +267,9 @@ public class MemberJpaRepository {
         return StringUtils.hasText(username) ? member.username.eq(username) : null;
     }
 
-    private BooleanExpression teamNameEq(String teamName) {
-        return StringUtils.hasText(teamName) ? team.name.eq(teamName) : null;
+    // 없는 팀 이름이면 빈 in 조건(1 = 2)이 되어 결과가 없다.
+    private BooleanExpression teamIdIn(String teamName) {
+        return StringUtils.hasText(teamName) ? member.team.id.in(teamNameCache.idsOf(teamName)) : null;
     }
 
     private BooleanExpression ageGoe(Integer ageGoe) {
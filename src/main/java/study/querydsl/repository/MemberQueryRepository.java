@@ -2,6 +2,7 @@ package study.querydsl.repository;
 
 import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Repository;
 import org.springframework.util.StringUtils;
 import study.querydsl.dto.MemberSearchCondition;
@@ -20,6 +21,7 @@ import static study.querydsl.entity.QTeam.team;
  * MemberQueryRepository을 통해 직접 주입받는 식으로 해도 된다.
  */
 @Repository
+@Lazy // 기동에 필요 없으므로 처음 쓰일 때 생성
 public class MemberQueryRepository {
 
     private final JPAQueryFactory queryFactory;
@@ -2,19 +2,29 @@ package study.querydsl.repository;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import study.querydsl.dto.EstimatedPage;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 
 import java.util.List;
+import java.util.Map;
 
 // QueryDSL 사용을 위한 인터페이스 - MemberRepositoryImpl에서 구현
-public interface MemberRepositoryCustom {
+// search / searchPageSimple / searchPageComplex는 샤드 저장소와 함께 쓰는 MemberSearchRepository에 있다.
+public interface MemberRepositoryCustom extends MemberSearchRepository {
 
-    List<MemberTeamDto> search(MemberSearchCondition memberSearchCondition);
+    // 전체 건수가 크면 count 쿼리 대신 통계로 추정한다. (EstimatedPage.totalExact)
+    EstimatedPage<MemberTeamDto> searchPageEstimated(MemberSearchCondition condition, Pageable pageable);
 
-    Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable);
+    // 요청한 필드만 select 해서 필드 이름 -> 값 Map으로 돌려준다.
+    List<Map<String, Object>> search(MemberSearchCondition condition, MemberFields fields);
 
-    Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable);
+    // count 쿼리를 항상 실행한다. (searchPageSimple과 같음)
+    Page<Map<String, Object>> searchPageSimple(MemberSearchCondition condition, MemberFields fields, Pageable pageable);
 
-    
+    // 필요할 때만 count 쿼리를 실행한다. (searchPageComplex와 같음)
+    Page<Map<String, Object>> searchPage(MemberSearchCondition condition, MemberFields fields, Pageable pageable);
+
+    // 조건들을 or로 묶은 쿼리 한 번으로 실행하고, 결과를 조건 순서대로 나눠 돌려준다.
+    List<List<MemberTeamDto>> searchMerged(List<MemberSearchCondition> conditions);
 }
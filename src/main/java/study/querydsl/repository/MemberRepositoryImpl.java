@@ -1,6 +1,9 @@
 package study.querydsl.repository;
 
-import com.querydsl.core.QueryResults;
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.Predicate;
 import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
@@ -10,124 +13,267 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
+import study.querydsl.dto.EstimatedPage;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
-import study.querydsl.dto.QMemberTeamDto;
-import study.querydsl.entity.Member;
+import study.querydsl.repository.timing.QueryStage;
+import study.querydsl.repository.timing.QueryTimings;
+import study.querydsl.repository.timing.TimedJPAQueryFactory;
 
 import javax.persistence.EntityManager;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import static study.querydsl.entity.QMember.member;
-import static study.querydsl.entity.QTeam.team;
 
 @Service
 public class MemberRepositoryImpl implements MemberRepositoryCustom {
 
+    // 이 offset부터 deferred join으로 페이징한다.
+    static final long DEFERRED_JOIN_MIN_OFFSET = 1000;
+
     private final JPAQueryFactory queryFactory;
+    private final TeamNameCache teamNameCache;
+    private final MemberCountEstimator countEstimator;
+    private final QueryTimings timings;
 
-    public MemberRepositoryImpl(EntityManager em) {
-        this.queryFactory = new JPAQueryFactory(em);
+    // 쿼리마다 serialize / translate / jdbc / hydrate 구간을 QueryTimings에 기록한다.
+    public MemberRepositoryImpl(EntityManager em, TeamNameCache teamNameCache, MemberCountEstimator countEstimator,
+                                QueryTimings timings) {
+        this.queryFactory = new TimedJPAQueryFactory(em, timings);
+        this.teamNameCache = teamNameCache;
+        this.countEstimator = countEstimator;
+        this.timings = timings;
     }
 
     @Override
     public List<MemberTeamDto> search(MemberSearchCondition condition) {
-        return queryFactory
-                .select(new QMemberTeamDto(
-                        member.id.as("memberId"),
-                        member.username,
-                        member.age,
-                        team.id.as("teamId"),
-                        team.name.as("teamName")))
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
-                .fetch();
+        return toDtos(QueryDeadline.apply(withTeamJoin(contentQuery(condition))).fetch());
     }
 
     @Override
     public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
-        QueryResults<MemberTeamDto> results = queryFactory
-                .select(new QMemberTeamDto(
-                        member.id.as("memberId"),
-                        member.username,
-                        member.age,
-                        team.id.as("teamId"),
-                        team.name.as("teamName")))
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
-                .offset(pageable.getOffset())
-                .limit(pageable.getPageSize())
-                .fetchResults();// fetchResults() : 컨텐츠와 카운트용 쿼리를 각각 날린다.
+        List<MemberTeamDto> content = pageContent(condition, pageable);
 
-        List<MemberTeamDto> content = results.getResults();
-        long total = results.getTotal();
+        // fetchResults()는 카운트 쿼리에도 content 쿼리의 조인을 그대로 쓰므로 카운트 쿼리를 따로 만든다.
+        long total = countQuery(condition).fetchOne();
 
         return new PageImpl<>(content, pageable, total);
     }
 
     @Override
     public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
-        List<MemberTeamDto> content = queryFactory
-                .select(new QMemberTeamDto(
-                        member.id.as("memberId"),
-                        member.username,
-                        member.age,
-                        team.id.as("teamId"),
-                        team.name.as("teamName")))
+        List<MemberTeamDto> content = pageContent(condition, pageable);
+
+        // return PageableExecutionUtils.getPage(content, pageable, () -> countQuery.fetchCount());
+        // count 쿼리(와 QueryDeadline 적용)는 PageableExecutionUtils가 실제로 부를 때 만든다.
+        return PageableExecutionUtils.getPage(content, pageable, () -> countQuery(condition).fetchOne());
+        // return new PageImpl<>(content, pageable, total);
+    }
+
+    /**
+     * 1. content만으로 전체 건수를 알 수 있으면(마지막 페이지) 그 값 - 정확
+     * 2. 통계 추정값이 exact-below보다 작으면 count 쿼리 - 정확
+     * 3. 그 외에는 추정값 - 다음 페이지가 있는데 추정값이 작게 나와 hasNext()가 false가 되지 않도록 보정한다.
+     *
+     * deferred join 페이지는 두 쿼리 사이에 삭제된 회원만큼 짧아질 수 있으므로 건수로 마지막 페이지라고 판단하지 않는다.
+     */
+    @Override
+    public EstimatedPage<MemberTeamDto> searchPageEstimated(MemberSearchCondition condition, Pageable pageable) {
+        List<MemberTeamDto> content = pageContent(condition, pageable);
+
+        boolean shortPage = content.size() < pageable.getPageSize();
+        boolean lastPage = shortPage && pageable.getOffset() < DEFERRED_JOIN_MIN_OFFSET;
+        if (lastPage && (!content.isEmpty() || pageable.getOffset() == 0)) {
+            return new EstimatedPage<>(content, pageable, pageable.getOffset() + content.size(), true);
+        }
+
+        long estimate = countEstimator.estimate(condition);
+        if (estimate < countEstimator.getExactBelow()) {
+            return new EstimatedPage<>(content, pageable, countQuery(condition).fetchOne(), true);
+        }
+        long seen = pageable.getOffset() + content.size() + (shortPage ? 0 : 1);
+        return new EstimatedPage<>(content, pageable, Math.max(estimate, seen), false);
+    }
+
+    @Override
+    public List<Map<String, Object>> search(MemberSearchCondition condition, MemberFields fields) {
+        return toMaps(QueryDeadline.apply(withTeamJoin(fieldsQuery(condition, fields))).fetch(), fields);
+    }
+
+    @Override
+    public Page<Map<String, Object>> searchPageSimple(MemberSearchCondition condition, MemberFields fields,
+                                                      Pageable pageable) {
+        List<Map<String, Object>> content = fieldsPageContent(condition, fields, pageable);
+        long total = countQuery(condition).fetchOne();
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    @Override
+    public Page<Map<String, Object>> searchPage(MemberSearchCondition condition, MemberFields fields, Pageable pageable) {
+        List<Map<String, Object>> content = fieldsPageContent(condition, fields, pageable);
+        return PageableExecutionUtils.getPage(content, pageable, () -> countQuery(condition).fetchOne());
+    }
+
+    /**
+     * where (조건1) or (조건2) or ... 로 한 번에 읽은 뒤 행마다 어느 조건에 맞는지 메모리에서 가른다.
+     * 한 행이 여러 조건에 맞을 수 있으므로 SQL의 case 판별 컬럼 대신 matches()로 다시 평가한다.
+     */
+    @Override
+    public List<List<MemberTeamDto>> searchMerged(List<MemberSearchCondition> conditions) {
+        BooleanBuilder anyOf = new BooleanBuilder();
+        for (MemberSearchCondition condition : conditions) {
+            Predicate allOf = ExpressionUtils.allOf(searchConditions(condition));
+            if (allOf == null) {
+                // 조건 없는 검색이 섞여 있으면 어차피 전체를 읽는다.
+                anyOf = new BooleanBuilder();
+                break;
+            }
+            anyOf.or(allOf);
+        }
+
+        List<MemberTeamDto> rows = toDtos(QueryDeadline.apply(withTeamJoin(queryFactory
+                .select(member.id, member.username, member.age, member.team.id)
+                .from(member)
+                .where(anyOf)))
+                .fetch());
+
+        List<List<MemberTeamDto>> results = new ArrayList<>(conditions.size());
+        for (MemberSearchCondition condition : conditions) {
+            results.add(rows.stream()
+                    .filter(row -> matches(condition, row))
+                    .collect(Collectors.toList()));
+        }
+        return results;
+    }
+
+    /**
+     * offset이 DEFERRED_JOIN_MIN_OFFSET 이상이면 deferred join으로 읽는다.
+     * 앞쪽 페이지는 쿼리 한 번이 더 싸다.
+     */
+    private List<MemberTeamDto> pageContent(MemberSearchCondition condition, Pageable pageable) {
+        if (pageable.getOffset() >= DEFERRED_JOIN_MIN_OFFSET) {
+            return deferredJoinContent(condition, pageable);
+        }
+        return singleQueryContent(condition, pageable);
+    }
+
+    // 조건 / 정렬 / offset으로 모든 컬럼을 한 번에 읽는다. (deferred join 전의 방식, DeferredJoinBenchmark 기준선)
+    List<MemberTeamDto> singleQueryContent(MemberSearchCondition condition, Pageable pageable) {
+        return toDtos(QueryDeadline.apply(withTeamJoin(contentQuery(condition)
+                .orderBy(MemberSorts.toOrderSpecifiers(pageable))
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())))
+                .fetch());
+    }
+
+    private List<Map<String, Object>> fieldsPageContent(MemberSearchCondition condition, MemberFields fields,
+                                                        Pageable pageable) {
+        return toMaps(QueryDeadline.apply(withTeamJoin(fieldsQuery(condition, fields)
+                .orderBy(MemberSorts.toOrderSpecifiers(pageable))
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())))
+                .fetch(), fields);
+    }
+
+    /**
+     * deferred join
+     * 1. 조건 / 정렬 / offset으로 member.id만 페이징한다.
+     *    (age, member_id), (username, member_id) 인덱스만으로 처리되어 건너뛰는 행의 나머지 컬럼을 읽지 않는다.
+     * 2. 그 페이지의 id로만 컬럼을 읽고 1번의 순서대로 다시 정렬한다.
+     */
+    List<MemberTeamDto> deferredJoinContent(MemberSearchCondition condition, Pageable pageable) {
+        List<Long> ids = QueryDeadline.apply(withTeamJoin(queryFactory
+                .select(member.id)
                 .from(member)
-                .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
+                .where(searchConditions(condition))
+                .orderBy(MemberSorts.toOrderSpecifiers(pageable))
                 .offset(pageable.getOffset())
-                .limit(pageable.getPageSize())
+                .limit(pageable.getPageSize())))
                 .fetch();
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
 
-        JPAQuery<Member> countQuery = queryFactory
-                .select(member)
+        Map<Long, MemberTeamDto> byId = toDtos(QueryDeadline.apply(queryFactory
+                .select(member.id, member.username, member.age, member.team.id)
                 .from(member)
-                .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                );
+                .where(member.id.in(ids)))
+                .fetch())
+                .stream()
+                .collect(Collectors.toMap(MemberTeamDto::getMemberId, Function.identity()));
+        // 두 쿼리 사이에 삭제된 회원은 빠진다.
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
 
-        // return PageableExecutionUtils.getPage(content, pageable, () -> countQuery.fetchCount());
-        return PageableExecutionUtils.getPage(content, pageable, countQuery::fetchCount);
-        // return new PageImpl<>(content, pageable, total);
+    // teamId는 member의 FK로, teamName은 TeamNameCache로 채우므로 teamName 정렬이 아니면 team 조인이 없다.
+    private JPAQuery<Tuple> contentQuery(MemberSearchCondition condition) {
+        return MemberSearchQueries.content(queryFactory, searchConditions(condition));
+    }
+
+    // 요청한 필드의 컬럼만 select - contentQuery와 같은 조건
+    private JPAQuery<Tuple> fieldsQuery(MemberSearchCondition condition, MemberFields fields) {
+        return queryFactory
+                .select(fields.columns())
+                .from(member)
+                .where(searchConditions(condition));
+    }
+
+    // teamName 조건도 team_id 조건으로 바뀌므로 team 조인이 없다.
+    // QueryDeadline은 만드는 시점에 남은 시간으로 걸리므로 실행 직전에 만든다.
+    JPAQuery<Long> countQuery(MemberSearchCondition condition) {
+        return QueryDeadline.apply(withTeamJoin(MemberSearchQueries.count(queryFactory, searchConditions(condition))));
+    }
+
+    private <T> JPAQuery<T> withTeamJoin(JPAQuery<T> query) {
+        return MemberSearchQueries.withTeamJoin(query);
+    }
+
+    private Predicate[] searchConditions(MemberSearchCondition condition) {
+        return MemberSearchQueries.conditions(condition, this::teamIdIn);
     }
 
-    // Predicate보다는 BooleanExpression을 쓰자(조합할 수 있는 장점때문에)
-    private BooleanExpression usernameEq(String username) {
-        return StringUtils.hasText(username) ? member.username.eq(username) : null;
+    // searchConditions()와 같은 판정을 메모리에서
+    private boolean matches(MemberSearchCondition condition, MemberTeamDto row) {
+        return (!StringUtils.hasText(condition.getUsername()) || condition.getUsername().equals(row.getUsername()))
+                && (!StringUtils.hasText(condition.getTeamName())
+                        || teamNameCache.idsOf(condition.getTeamName()).contains(row.getTeamId()))
+                && (condition.getAgeGoe() == null || row.getAge() >= condition.getAgeGoe())
+                && (condition.getAgeLoe() == null || row.getAge() <= condition.getAgeLoe());
     }
 
-    private BooleanExpression teamNameEq(String teamName) {
-        return StringUtils.hasText(teamName) ? team.name.eq(teamName) : null;
+    private List<Map<String, Object>> toMaps(List<Tuple> rows, MemberFields fields) {
+        return timings.time(QueryStage.MAP, () -> rows.stream()
+                .map(row -> fields.toMap(row, teamNameCache))
+                .collect(Collectors.toList()));
     }
 
-    private BooleanExpression ageGoe(Integer ageGoe) {
-        return ageGoe != null ? member.age.goe(ageGoe) : null;
+    private List<MemberTeamDto> toDtos(List<Tuple> rows) {
+        return timings.time(QueryStage.MAP, () -> rows.stream()
+                .map(row -> {
+                    Long teamId = row.get(member.team.id);
+                    return new MemberTeamDto(
+                            row.get(member.id),
+                            row.get(member.username),
+                            row.get(member.age),
+                            teamId,
+                            teamNameCache.nameOf(teamId));
+                })
+                .collect(Collectors.toList()));
     }
 
-    private BooleanExpression ageLoe(Integer ageLoe) {
-        return ageLoe != null ? member.age.loe(ageLoe) : null;
+    /**
+     * team.name = ? 대신 캐시에서 찾은 id로 member.team_id in (...)
+     * 없는 팀 이름이면 빈 목록이 되고, 빈 in 조건은 1 = 2로 바뀌어 결과가 없다.
+     */
+    private BooleanExpression teamIdIn(String teamName) {
+        return member.team.id.in(teamNameCache.idsOf(teamName));
     }
 }
@@ -0,0 +1,79 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.util.StringUtils;
+import study.querydsl.dto.MemberSearchCondition;
+
+import java.util.function.Function;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 회원 검색 쿼리 조각
+ * MemberRepositoryImpl과 ShardedMemberRepository가 같은 조건 / 컬럼으로 검색하도록 한 곳에 둔다.
+ *
+ * teamName 조건만 저장소마다 다르다.
+ * - MemberRepositoryImpl : TeamNameCache에서 찾은 id로 member.team_id in (...) - 조인 없음
+ * - 샤드 : 샤드마다 팀 id가 다르므로 team.name = ? - withTeamJoin()이 조인을 붙인다.
+ */
+public final class MemberSearchQueries {
+
+    private MemberSearchQueries() {
+    }
+
+    public static Predicate[] conditions(MemberSearchCondition condition,
+                                         Function<String, BooleanExpression> teamNameCondition) {
+        return new Predicate[]{
+                usernameEq(condition.getUsername()),
+                StringUtils.hasText(condition.getTeamName()) ? teamNameCondition.apply(condition.getTeamName()) : null,
+                ageGoe(condition.getAgeGoe()),
+                ageLoe(condition.getAgeLoe())
+        };
+    }
+
+    /**
+     * 조인 없이 member 컬럼과 FK만 select 한다. teamName은 저장소가 따로 채운다.
+     * order by까지 붙인 뒤 withTeamJoin()으로 필요한 경우에만 조인한다.
+     */
+    public static JPAQuery<Tuple> content(JPAQueryFactory queryFactory, Predicate... conditions) {
+        return queryFactory
+                .select(member.id, member.username, member.age, member.team.id)
+                .from(member)
+                .where(conditions);
+    }
+
+    // 카운트는 엔티티가 아닌 member.id로 센다.
+    public static JPAQuery<Long> count(JPAQueryFactory queryFactory, Predicate... conditions) {
+        return queryFactory
+                .select(member.id.count())
+                .from(member)
+                .where(conditions);
+    }
+
+    // select / where / order by 어디에서도 team을 쓰지 않으면 조인하지 않는다.
+    public static <T> JPAQuery<T> withTeamJoin(JPAQuery<T> query) {
+        return JoinElimination.leftJoinIfReferenced(query, member.team, team);
+    }
+
+    public static BooleanExpression teamNameEq(String teamName) {
+        return team.name.eq(teamName);
+    }
+
+    // Predicate보다는 BooleanExpression을 쓰자(조합할 수 있는 장점때문에)
+    private static BooleanExpression usernameEq(String username) {
+        return StringUtils.hasText(username) ? member.username.eq(username) : null;
+    }
+
+    private static BooleanExpression ageGoe(Integer ageGoe) {
+        return ageGoe != null ? member.age.goe(ageGoe) : null;
+    }
+
+    private static BooleanExpression ageLoe(Integer ageLoe) {
+        return ageLoe != null ? member.age.loe(ageLoe) : null;
+    }
+}
@@ -0,0 +1,22 @@
+package study.querydsl.repository;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+
+import java.util.List;
+
+/**
+ * 회원 검색
+ * - MemberRepositoryImpl (MemberRepositoryCustom) : 기본 DB
+ * - ShardedMemberRepository : 샤드 scatter-gather (querydsl.shard.enabled=true)
+ */
+public interface MemberSearchRepository {
+
+    List<MemberTeamDto> search(MemberSearchCondition memberSearchCondition);
+
+    Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable);
+
+    Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable);
+}
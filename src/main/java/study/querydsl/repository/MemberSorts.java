@@ -0,0 +1,103 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.dsl.ComparableExpressionBase;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import study.querydsl.dto.MemberTeamDto;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * Pageable의 Sort -> Querydsl OrderSpecifier 변환 (화이트리스트)
+ *
+ * 사용자가 아무 컬럼이나 정렬하면 전체 filesort가 날 수 있으므로
+ * - INDEXED : 인덱스가 있는 member 컬럼 (Member @Table indexes 참고), 제한 없이 허용
+ * - TOP_N   : 인덱스를 탈 수 없는 정렬, offset + size가 TOP_N_LIMIT 이하일 때만 허용 (DB가 top-N 정렬로 처리)
+ * 그 외 속성은 UnsupportedSortException (400)
+ *
+ * 페이지 경계가 흔들리지 않도록 마지막에 항상 member.id를 붙인다.
+ *
+ * toComparator()는 같은 정렬을 메모리에서 한다. (샤드별 결과 merge 용)
+ */
+public final class MemberSorts {
+
+    public static final long TOP_N_LIMIT = 1000;
+
+    // teamId는 member.team_id(FK) 컬럼이므로 team 조인 없이 idx_member_team을 탄다.
+    private static final Map<String, ComparableExpressionBase<?>> INDEXED = Map.of(
+            "memberId", member.id,
+            "username", member.username,
+            "age", member.age,
+            "teamId", member.team.id);
+
+    // teamName만 team 조인이 필요하다.
+    private static final Map<String, ComparableExpressionBase<?>> TOP_N = Map.of(
+            "teamName", team.name);
+
+    // H2 기본값처럼 null은 가장 작은 값으로 본다. (asc면 앞, desc면 뒤)
+    private static final Map<String, Comparator<MemberTeamDto>> COMPARATORS = Map.of(
+            "memberId", Comparator.comparing(MemberTeamDto::getMemberId, Comparator.nullsFirst(Comparator.naturalOrder())),
+            "username", Comparator.comparing(MemberTeamDto::getUsername, Comparator.nullsFirst(Comparator.naturalOrder())),
+            "age", Comparator.comparingInt(MemberTeamDto::getAge),
+            "teamId", Comparator.comparing(MemberTeamDto::getTeamId, Comparator.nullsFirst(Comparator.naturalOrder())),
+            "teamName", Comparator.comparing(MemberTeamDto::getTeamName, Comparator.nullsFirst(Comparator.naturalOrder())));
+
+    private MemberSorts() {
+    }
+
+    public static OrderSpecifier<?>[] toOrderSpecifiers(Pageable pageable) {
+        List<OrderSpecifier<?>> orders = new ArrayList<>();
+        boolean orderedById = false;
+
+        for (Sort.Order order : pageable.getSort()) {
+            ComparableExpressionBase<?> path = INDEXED.get(order.getProperty());
+            if (path == null) {
+                path = TOP_N.get(order.getProperty());
+                if (path == null) {
+                    throw new UnsupportedSortException("not sortable: " + order.getProperty()
+                            + " (allowed: " + INDEXED.keySet() + ", " + TOP_N.keySet() + ")");
+                }
+                if (pageable.getOffset() + pageable.getPageSize() > TOP_N_LIMIT) {
+                    throw new UnsupportedSortException("sort by " + order.getProperty()
+                            + " is only allowed within the first " + TOP_N_LIMIT + " rows");
+                }
+            }
+            orders.add(order.isAscending() ? path.asc() : path.desc());
+            orderedById |= path == member.id;
+        }
+
+        if (!orderedById) {
+            orders.add(member.id.asc());
+        }
+        return orders.toArray(new OrderSpecifier<?>[0]);
+    }
+
+    // toOrderSpecifiers()와 같은 순서의 Comparator - 허용 여부 검사는 toOrderSpecifiers()가 한다.
+    public static Comparator<MemberTeamDto> toComparator(Pageable pageable) {
+        Comparator<MemberTeamDto> result = null;
+        boolean orderedById = false;
+
+        for (Sort.Order order : pageable.getSort()) {
+            Comparator<MemberTeamDto> comparator = COMPARATORS.get(order.getProperty());
+            if (comparator == null) {
+                throw new UnsupportedSortException("not sortable: " + order.getProperty());
+            }
+            comparator = order.isAscending() ? comparator : comparator.reversed();
+            result = result == null ? comparator : result.thenComparing(comparator);
+            orderedById |= order.getProperty().equals("memberId");
+        }
+
+        if (!orderedById) {
+            Comparator<MemberTeamDto> byId = COMPARATORS.get("memberId");
+            result = result == null ? byId : result.thenComparing(byId);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,58 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import org.hibernate.annotations.QueryHints;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 요청 단위 데드라인 (스레드 로컬)
+ *
+ * 컨트롤러 인터셉터가 요청 시작 시 set()으로 데드라인을 걸면,
+ * 리포지토리는 쿼리마다 apply()로 남은 시간을 Hibernate 타임아웃 힌트(-> JDBC setQueryTimeout)로 건다.
+ * 데드라인이 지나면 DB가 실행 중인 statement를 취소하므로, 클라이언트가 포기한 요청이 커넥션을 계속 잡고 있지 않는다.
+ * 데드라인이 없는 스레드(배치 등)에서는 아무 것도 하지 않는다.
+ */
+public final class QueryDeadline {
+
+    private static final ThreadLocal<Long> DEADLINE = new ThreadLocal<>();
+
+    private QueryDeadline() {
+    }
+
+    public static void set(Duration timeout) {
+        DEADLINE.set(System.nanoTime() + timeout.toNanos());
+    }
+
+    // 다른 스레드로 넘길 때 쓰는 절대 데드라인 (System.nanoTime 기준)
+    public static Long current() {
+        return DEADLINE.get();
+    }
+
+    public static void restore(Long deadlineNanos) {
+        if (deadlineNanos == null) {
+            DEADLINE.remove();
+        } else {
+            DEADLINE.set(deadlineNanos);
+        }
+    }
+
+    public static void clear() {
+        DEADLINE.remove();
+    }
+
+    public static <T> JPAQuery<T> apply(JPAQuery<T> query) {
+        Long deadline = DEADLINE.get();
+        if (deadline == null) {
+            return query;
+        }
+        long remainingNanos = deadline - System.nanoTime();
+        if (remainingNanos <= 0) {
+            throw new QueryDeadlineExceededException();
+        }
+        // JDBC 타임아웃은 초 단위이므로 올림 (0초는 타임아웃 없음이 되어버린다.)
+        int seconds = (int) Math.max(1, (remainingNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        return query.setHint(QueryHints.TIMEOUT_HIBERNATE, seconds);
+    }
+}
@@ -0,0 +1,15 @@
+package study.querydsl.repository;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * 쿼리를 보내기 전에 이미 요청 데드라인이 지난 경우
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class QueryDeadlineExceededException extends RuntimeException {
+
+    public QueryDeadlineExceededException() {
+        super("request deadline exceeded");
+    }
+}
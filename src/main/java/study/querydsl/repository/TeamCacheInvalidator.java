@@ -0,0 +1,42 @@
+package study.querydsl.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+import javax.persistence.PrePersist;
+import javax.persistence.PreRemove;
+
+/**
+ * Team 엔티티 리스너 - Team이 바뀌면 TeamNameCache를 다시 읽게 한다.
+ *
+ * 스프링 부트의 Hibernate 설정에서는 스프링 빈 컨테이너로 생성되어 캐시가 주입된다.
+ * EntityManagerFactory를 만드는 도중에 생성되므로 @Lazy 프록시로 받아 순환 참조를 피한다.
+ * (샤드처럼 직접 만든 EntityManagerFactory에서는 주입되지 않으므로 null일 수 있다.)
+ *
+ * 시퀀스 id는 insert가 flush 때 나가므로 PostPersist도 flush 때 불린다.
+ * persist() 직후의 검색도 새 팀을 보도록 PrePersist에서 먼저 부른다. (검색 쿼리가 자동 flush 한다.)
+ *
+ * 트랜잭션이 끝난 뒤 다시 비우는 것과 트랜잭션 로컬 스냅샷은 TeamNameCache.teamsChanged()가 맡는다.
+ * (벌크 update는 이 리스너를 타지 않으므로 호출하는 쪽에서 teamsChanged()를 직접 불러야 한다.)
+ */
+public class TeamCacheInvalidator {
+
+    @Lazy
+    @Autowired(required = false)
+    private TeamNameCache teamNameCache;
+
+    @PrePersist
+    @PostPersist
+    @PostUpdate
+    @PreRemove
+    @PostRemove
+    public void teamChanged(Object team) {
+        if (teamNameCache == null) {
+            return;
+        }
+        teamNameCache.teamsChanged();
+    }
+}
@@ -0,0 +1,200 @@
+package study.querydsl.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Team 이름 <-> id 니어 캐시
+ *
+ * 팀은 수가 적고 거의 바뀌지 않으므로 전체를 메모리에 들고 있는다.
+ * - teamName 검색 조건을 team 조인 없이 member.team.id in (...) 으로 바꾸는 데 쓰고
+ * - MemberTeamDto.teamName을 DB 대신 여기서 채운다.
+ * Team이 저장 / 수정 / 삭제되면 TeamCacheInvalidator가 teamsChanged() 한다.
+ *
+ * 공유 캐시는 호출한 쪽 트랜잭션 밖에서만 읽는다. (기동 시 preload, 바뀐 뒤에는 refresher 스레드)
+ * 검색 요청이 커넥션을 쥔 채 캐시를 다시 읽으려고 두 번째 커넥션을 기다리면
+ * 풀이 작을 때 요청끼리 서로 기다리다 멈추므로, 다시 읽는 동안에는 이전 스냅샷을 그대로 쓴다.
+ * (다른 트랜잭션이 커밋한 팀 변경은 갱신이 끝난 뒤부터 보인다.)
+ * 아직 한 번도 읽지 못했으면 호출한 쪽에서 바로 읽고, 공유 캐시에는 넣지 않는다.
+ *
+ * 팀을 바꾼 트랜잭션 안에서는 자기 변경이 보여야 하므로, 그 트랜잭션의 EntityManager로 읽은 값을
+ * 트랜잭션이 끝날 때까지만 따로 들고 있는다. (공유 캐시에는 넣지 않는다)
+ */
+@Slf4j
+@Component
+public class TeamNameCache {
+
+    private final EntityManager em;
+    private final TransactionTemplate readOnly;
+    // 팀을 바꾼 트랜잭션에 바인딩되는 리소스 키
+    private final Object localChangesKey = new Object();
+
+    private final ExecutorService refresher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "team-name-cache");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean refreshScheduled = new AtomicBoolean();
+    private final AtomicLong version = new AtomicLong();
+    private volatile Snapshot snapshot;
+
+    public TeamNameCache(EntityManager em, PlatformTransactionManager transactionManager) {
+        this.em = em;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void preload() {
+        refresh();
+    }
+
+    // 이름이 같은 팀이 여러 개일 수 있으므로 id 목록을 돌려준다. 없는 이름이면 빈 목록
+    public List<Long> idsOf(String teamName) {
+        return snapshot().idsByName.getOrDefault(teamName, Collections.emptyList());
+    }
+
+    public String nameOf(Long teamId) {
+        return teamId == null ? null : snapshot().nameById.get(teamId);
+    }
+
+    // 공유 캐시를 백그라운드에서 다시 읽는다. 끝날 때까지는 이전 스냅샷을 쓴다.
+    public void invalidate() {
+        version.incrementAndGet();
+        if (refreshScheduled.compareAndSet(false, true)) {
+            refresher.execute(() -> {
+                // 읽는 도중 다시 invalidate 되면 한 번 더 돌도록 읽기 전에 내린다.
+                refreshScheduled.set(false);
+                try {
+                    refresh();
+                } catch (RuntimeException e) {
+                    log.warn("team name cache refresh failed", e);
+                }
+            });
+        }
+    }
+
+    /**
+     * 팀이 바뀌었을 때 부른다. 엔티티 리스너를 타지 않는 벌크 update / delete (queryFactory.update(team) 등) 뒤에는 직접 불러야 한다.
+     * - 공유 캐시 갱신을 예약하고, 트랜잭션이 끝난 뒤 한 번 더 예약한다. (커밋 전에 시작한 갱신은 예전 값을 읽으므로)
+     * - 이 트랜잭션의 남은 조회는 자기 변경이 보이도록 트랜잭션 로컬 스냅샷으로 읽는다.
+     */
+    public void teamsChanged() {
+        invalidate();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        LocalChanges local = (LocalChanges) TransactionSynchronizationManager.getResource(localChangesKey);
+        if (local != null) {
+            local.snapshot = null;
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(localChangesKey, new LocalChanges());
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                // 롤백이어도 다시 읽는다. 커밋 전에 시작한 갱신이 남긴 값을 바로잡도록
+                TransactionSynchronizationManager.unbindResourceIfPossible(localChangesKey);
+                invalidate();
+            }
+        });
+    }
+
+    private Snapshot snapshot() {
+        LocalChanges local = TransactionSynchronizationManager.isSynchronizationActive()
+                ? (LocalChanges) TransactionSynchronizationManager.getResource(localChangesKey)
+                : null;
+        if (local != null) {
+            if (local.snapshot == null) {
+                local.snapshot = load();
+            }
+            return local.snapshot;
+        }
+
+        Snapshot current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        // preload 전 - 호출한 쪽에서 읽되, 호출한 쪽 트랜잭션이 본 값이므로 공유 캐시에는 넣지 않는다.
+        return load();
+    }
+
+    /**
+     * 호출한 쪽 트랜잭션과 상관없이 커밋된 팀을 읽어 공유 캐시를 바꾼다.
+     * preload와 refresher 스레드에서만 부른다. (트랜잭션이 없는 스레드이므로 커넥션을 하나만 쓴다.)
+     */
+    private void refresh() {
+        long loadedVersion = version.get();
+        Snapshot loaded = readOnly.execute(status -> load());
+        synchronized (this) {
+            // 더 늦게 시작한 갱신이 먼저 끝났으면 덮어쓰지 않는다.
+            if (snapshot == null || snapshot.version <= loadedVersion) {
+                snapshot = loaded.withVersion(loadedVersion);
+            }
+        }
+    }
+
+    private Snapshot load() {
+        List<Object[]> rows = em.createQuery("select t.id, t.name from Team t", Object[].class)
+                .getResultList();
+
+        Map<String, List<Long>> idsByName = new HashMap<>();
+        Map<Long, String> nameById = new HashMap<>();
+        for (Object[] row : rows) {
+            Long id = (Long) row[0];
+            String name = (String) row[1];
+            nameById.put(id, name);
+            idsByName.computeIfAbsent(name, key -> new ArrayList<>()).add(id);
+        }
+        log.debug("team name cache loaded: {} teams", nameById.size());
+        return new Snapshot(idsByName, nameById);
+    }
+
+    private static class LocalChanges {
+        private Snapshot snapshot;
+    }
+
+    private static class Snapshot {
+        private final Map<String, List<Long>> idsByName;
+        private final Map<Long, String> nameById;
+        // 읽기 시작할 때의 invalidate 횟수
+        private final long version;
+
+        private Snapshot(Map<String, List<Long>> idsByName, Map<Long, String> nameById) {
+            this(idsByName, nameById, 0);
+        }
+
+        private Snapshot(Map<String, List<Long>> idsByName, Map<Long, String> nameById, long version) {
+            this.idsByName = idsByName;
+            this.nameById = nameById;
+            this.version = version;
+        }
+
+        private Snapshot withVersion(long version) {
+            return new Snapshot(idsByName, nameById, version);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdown();
+    }
+}
@@ -0,0 +1,15 @@
+package study.querydsl.repository;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * fields 파라미터에 알 수 없는 필드가 있거나 필드가 하나도 없는 경우
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class UnsupportedFieldException extends RuntimeException {
+
+    public UnsupportedFieldException(String message) {
+        super(message);
+    }
+}
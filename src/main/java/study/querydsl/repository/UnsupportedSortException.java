@@ -0,0 +1,15 @@
+package study.querydsl.repository;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * 정렬할 수 없는 속성이거나, 인덱스 없는 정렬을 top-N 범위 밖에서 요청한 경우
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class UnsupportedSortException extends RuntimeException {
+
+    public UnsupportedSortException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,150 @@
+package study.querydsl.repository.analytics;
+
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Projections;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.core.types.dsl.PathBuilder;
+import com.querydsl.core.types.dsl.StringPath;
+import com.querydsl.sql.Configuration;
+import com.querydsl.sql.H2Templates;
+import com.querydsl.sql.SQLExpressions;
+import com.querydsl.sql.SQLQuery;
+import com.querydsl.sql.SQLQueryFactory;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberRankDto;
+import study.querydsl.dto.MemberTeamAgeDto;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * 윈도우 함수 기반 분석 쿼리 (querydsl-sql)
+ *
+ * JPQL은 윈도우 함수를 지원하지 않아 "팀별 최고령", "팀 내 순위" 같은 질의를
+ * 상관 서브쿼리(JPAExpressions)로 써야 했고, 이는 행마다 서브쿼리가 다시 실행된다.
+ * 여기서는 테이블을 한 번만 읽는 ROW_NUMBER / RANK / AVG OVER (PARTITION BY team_id)로 바꾼다.
+ *
+ * 커넥션은 DataSourceUtils로 현재 트랜잭션(JPA)의 커넥션을 그대로 쓴다.
+ * 트랜잭션 밖에서 커넥션을 얻으면 반납되지 않으므로 메소드마다 @Transactional(readOnly = true)가 필요하다.
+ * 같은 트랜잭션 안에서 쓴 JPA 변경은 flush 된 뒤에만 보인다.
+ */
+@Repository
+@Transactional(readOnly = true)
+public class MemberAnalyticsRepository {
+
+    private static final SMember m = SMember.member;
+    private static final STeam t = STeam.team;
+
+    private final SQLQueryFactory queryFactory;
+
+    public MemberAnalyticsRepository(DataSource dataSource) {
+        Configuration configuration = new Configuration(H2Templates.builder().build());
+        this.queryFactory = new SQLQueryFactory(configuration, () -> DataSourceUtils.getConnection(dataSource));
+    }
+
+    /**
+     * 팀별 최고령 회원 (동갑이면 member_id가 작은 회원)
+     * QuerydslBasicTest.subQuery의 "max(age) 서브쿼리" 대신 ROW_NUMBER() = 1
+     */
+    public List<MemberRankDto> findOldestPerTeam() {
+        Ranked ranked = new Ranked("ranked");
+        return queryFactory
+                .select(ranked.projection())
+                .from(SQLExpressions.select(
+                                m.memberId.as(Ranked.MEMBER_ID),
+                                m.username.as(Ranked.USERNAME),
+                                m.age.as(Ranked.AGE),
+                                m.teamId.as(Ranked.TEAM_ID),
+                                t.name.as(Ranked.TEAM_NAME),
+                                SQLExpressions.rowNumber().over()
+                                        .partitionBy(m.teamId)
+                                        .orderBy(m.age.desc(), m.memberId.asc())
+                                        .as(Ranked.RANK))
+                        .from(m)
+                        .join(t).on(m.teamId.eq(t.teamId)), ranked.alias)
+                .where(ranked.rank.eq(1L))
+                .orderBy(ranked.teamId.asc())
+                .fetch();
+    }
+
+    /**
+     * 팀 내 나이 순위 (나이가 많은 순, 동갑은 같은 순위)
+     * "나보다 나이 많은 팀원 수 + 1" 상관 서브쿼리 대신 RANK()
+     */
+    public List<MemberRankDto> findRankWithinTeam() {
+        return rankQuery()
+                .orderBy(m.teamId.asc(), m.age.desc(), m.memberId.asc())
+                .fetch();
+    }
+
+    /**
+     * 회원 나이와 팀 평균 나이
+     * QuerydslBasicTest.selectSubquery의 "select 절 avg 서브쿼리" 대신 AVG() OVER (PARTITION BY team_id)
+     */
+    public List<MemberTeamAgeDto> findAgeWithTeamAverage() {
+        return queryFactory
+                .select(Projections.constructor(MemberTeamAgeDto.class,
+                        m.memberId,
+                        m.username,
+                        m.age,
+                        m.teamId,
+                        t.name,
+                        SQLExpressions.avg(m.age.castToNum(Double.class)).over().partitionBy(m.teamId)))
+                .from(m)
+                .join(t).on(m.teamId.eq(t.teamId))
+                .orderBy(m.teamId.asc(), m.memberId.asc())
+                .fetch();
+    }
+
+    private SQLQuery<MemberRankDto> rankQuery() {
+        return queryFactory
+                .select(Projections.constructor(MemberRankDto.class,
+                        m.memberId,
+                        m.username,
+                        m.age,
+                        m.teamId,
+                        t.name,
+                        SQLExpressions.rank().over().partitionBy(m.teamId).orderBy(m.age.desc())))
+                .from(m)
+                .join(t).on(m.teamId.eq(t.teamId));
+    }
+
+    /**
+     * from 절 서브쿼리(인라인 뷰)의 컬럼
+     * 서브쿼리 select 절에서 붙인 별칭(대문자)과 같은 이름으로 참조한다.
+     */
+    private static class Ranked {
+
+        static final String MEMBER_ID = "MEMBER_ID";
+        static final String USERNAME = "USERNAME";
+        static final String AGE = "AGE";
+        static final String TEAM_ID = "TEAM_ID";
+        static final String TEAM_NAME = "TEAM_NAME";
+        static final String RANK = "RN";
+
+        final PathBuilder<Object> alias;
+        final NumberPath<Long> memberId;
+        final StringPath username;
+        final NumberPath<Integer> age;
+        final NumberPath<Long> teamId;
+        final StringPath teamName;
+        final NumberPath<Long> rank;
+
+        Ranked(String variable) {
+            alias = new PathBuilder<>(Object.class, variable);
+            memberId = Expressions.numberPath(Long.class, alias, MEMBER_ID);
+            username = Expressions.stringPath(alias, USERNAME);
+            age = Expressions.numberPath(Integer.class, alias, AGE);
+            teamId = Expressions.numberPath(Long.class, alias, TEAM_ID);
+            teamName = Expressions.stringPath(alias, TEAM_NAME);
+            rank = Expressions.numberPath(Long.class, alias, RANK);
+        }
+
+        Expression<MemberRankDto> projection() {
+            return Projections.constructor(MemberRankDto.class, memberId, username, age, teamId, teamName, rank);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package study.querydsl.repository.analytics;
+
+import com.querydsl.core.types.PathMetadataFactory;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.core.types.dsl.StringPath;
+import com.querydsl.sql.ColumnMetadata;
+import com.querydsl.sql.RelationalPathBase;
+
+import java.sql.Types;
+
+/**
+ * querydsl-sql용 member 테이블 메타모델
+ * JPA Q-Type(QMember)과 이름이 겹치지 않도록 S 접두사를 쓴다.
+ * 이름은 스프링 부트 네이밍 전략으로 만들어진 테이블 / 컬럼을 H2 대문자 식별자로 적는다. (인용 부호가 붙어도 일치하도록)
+ */
+public class SMember extends RelationalPathBase<SMember> {
+
+    public static final SMember member = new SMember("m");
+
+    public final NumberPath<Long> memberId = createNumber("memberId", Long.class);
+    public final StringPath username = createString("username");
+    public final NumberPath<Integer> age = createNumber("age", Integer.class);
+    public final NumberPath<Long> teamId = createNumber("teamId", Long.class);
+
+    public SMember(String variable) {
+        super(SMember.class, PathMetadataFactory.forVariable(variable), null, "MEMBER");
+        addMetadata(memberId, ColumnMetadata.named("MEMBER_ID").withIndex(1).ofType(Types.BIGINT).notNull());
+        addMetadata(username, ColumnMetadata.named("USERNAME").withIndex(2).ofType(Types.VARCHAR));
+        addMetadata(age, ColumnMetadata.named("AGE").withIndex(3).ofType(Types.INTEGER).notNull());
+        addMetadata(teamId, ColumnMetadata.named("TEAM_ID").withIndex(4).ofType(Types.BIGINT));
+    }
+}
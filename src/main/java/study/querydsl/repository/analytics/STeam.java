@@ -0,0 +1,26 @@
+package study.querydsl.repository.analytics;
+
+import com.querydsl.core.types.PathMetadataFactory;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.core.types.dsl.StringPath;
+import com.querydsl.sql.ColumnMetadata;
+import com.querydsl.sql.RelationalPathBase;
+
+import java.sql.Types;
+
+/**
+ * querydsl-sql용 team 테이블 메타모델
+ */
+public class STeam extends RelationalPathBase<STeam> {
+
+    public static final STeam team = new STeam("t");
+
+    public final NumberPath<Long> teamId = createNumber("teamId", Long.class);
+    public final StringPath name = createString("name");
+
+    public STeam(String variable) {
+        super(STeam.class, PathMetadataFactory.forVariable(variable), null, "TEAM");
+        addMetadata(teamId, ColumnMetadata.named("TEAM_ID").withIndex(1).ofType(Types.BIGINT).notNull());
+        addMetadata(name, ColumnMetadata.named("NAME").withIndex(2).ofType(Types.VARCHAR));
+    }
+}
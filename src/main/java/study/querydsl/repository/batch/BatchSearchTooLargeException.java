@@ -0,0 +1,15 @@
+package study.querydsl.repository.batch;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * 배치 검색 조건 수가 querydsl.batch.max-conditions를 넘는 경우
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class BatchSearchTooLargeException extends RuntimeException {
+
+    public BatchSearchTooLargeException(int size, int max) {
+        super("too many conditions: " + size + " (max " + max + ")");
+    }
+}
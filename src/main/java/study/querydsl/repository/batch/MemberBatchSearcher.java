@@ -0,0 +1,169 @@
+package study.querydsl.repository.batch;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberRepository;
+import study.querydsl.repository.QueryDeadline;
+import study.querydsl.repository.timing.QueryTrace;
+import study.querydsl.scheduling.QueryScheduler;
+import study.querydsl.scheduling.WorkloadClass;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 검색 조건 여러 개를 한 번에 실행 (POST /v1/members/batch)
+ *
+ * 1. 똑같은 조건은 한 번만 실행한다.
+ * 2. 채워진 필드 조합(shape)이 같은 조건은 mergeLimit개씩 or로 묶어 쿼리 한 번으로 실행한다. (searchMerged)
+ * 3. 묶인 쿼리와 혼자인 조건은 제한된 워커 풀에서 병렬로 실행한다.
+ *    풀이 차면 요청 스레드가 직접 실행하므로 동시 쿼리 수는 workers + 요청 스레드 수로 제한된다.
+ *    쿼리마다 QueryScheduler의 INTERACTIVE 예산을 받는다. (요청 스레드가 실행해도 같다)
+ * 요청의 QueryDeadline / QueryTrace는 워커 스레드에도 그대로 넘긴다. (예산 대기도 남은 데드라인까지만)
+ */
+@Slf4j
+@Component
+public class MemberBatchSearcher {
+
+    private final MemberRepository memberRepository;
+    private final QueryScheduler queryScheduler;
+    private final ExecutorService workers;
+    private final int maxConditions;
+    private final int mergeLimit;
+
+    public MemberBatchSearcher(MemberRepository memberRepository,
+                               QueryScheduler queryScheduler,
+                               @Value("${querydsl.batch.workers:4}") int workers,
+                               @Value("${querydsl.batch.max-conditions:100}") int maxConditions,
+                               @Value("${querydsl.batch.merge-limit:20}") int mergeLimit) {
+        this.memberRepository = memberRepository;
+        this.queryScheduler = queryScheduler;
+        this.maxConditions = maxConditions;
+        this.mergeLimit = mergeLimit;
+        this.workers = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(workers * 4),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "member-batch-search");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * @return 요청 인덱스 -> 검색 결과
+     */
+    public Map<Integer, List<MemberTeamDto>> search(List<MemberSearchCondition> conditions) {
+        if (conditions.size() > maxConditions) {
+            throw new BatchSearchTooLargeException(conditions.size(), maxConditions);
+        }
+
+        // 같은 조건 -> 요청 인덱스들
+        Map<MemberSearchCondition, List<Integer>> indexesByCondition = new LinkedHashMap<>();
+        for (int i = 0; i < conditions.size(); i++) {
+            indexesByCondition.computeIfAbsent(conditions.get(i), key -> new ArrayList<>()).add(i);
+        }
+
+        // shape -> 서로 다른 조건들
+        Map<Integer, List<MemberSearchCondition>> byShape = new LinkedHashMap<>();
+        for (MemberSearchCondition condition : indexesByCondition.keySet()) {
+            byShape.computeIfAbsent(shape(condition), key -> new ArrayList<>()).add(condition);
+        }
+
+        Long deadline = QueryDeadline.current();
+        QueryTrace trace = QueryTrace.current();
+        List<List<MemberSearchCondition>> groups = new ArrayList<>();
+        List<Future<List<List<MemberTeamDto>>>> futures = new ArrayList<>();
+        for (List<MemberSearchCondition> sameShape : byShape.values()) {
+            for (int from = 0; from < sameShape.size(); from += mergeLimit) {
+                List<MemberSearchCondition> group = sameShape.subList(from, Math.min(from + mergeLimit, sameShape.size()));
+                groups.add(group);
+                futures.add(workers.submit(withRequestContext(deadline, trace, () ->
+                        queryScheduler.call(WorkloadClass.INTERACTIVE, () -> group.size() == 1
+                                ? List.of(memberRepository.search(group.get(0)))
+                                : memberRepository.searchMerged(group)))));
+            }
+        }
+
+        Map<Integer, List<MemberTeamDto>> results = new TreeMap<>();
+        for (int g = 0; g < groups.size(); g++) {
+            List<List<MemberTeamDto>> groupResults = await(futures.get(g));
+            List<MemberSearchCondition> group = groups.get(g);
+            for (int c = 0; c < group.size(); c++) {
+                for (Integer index : indexesByCondition.get(group.get(c))) {
+                    results.put(index, groupResults.get(c));
+                }
+            }
+        }
+        log.debug("batch search: {} conditions, {} distinct, {} queries",
+                conditions.size(), indexesByCondition.size(), groups.size());
+        return results;
+    }
+
+    // 채워진 필드 조합 (MemberRepositoryImpl.searchConditions()와 같은 기준)
+    private static int shape(MemberSearchCondition condition) {
+        int shape = 0;
+        if (StringUtils.hasText(condition.getUsername())) {
+            shape |= 1;
+        }
+        if (StringUtils.hasText(condition.getTeamName())) {
+            shape |= 2;
+        }
+        if (condition.getAgeGoe() != null) {
+            shape |= 4;
+        }
+        if (condition.getAgeLoe() != null) {
+            shape |= 8;
+        }
+        return shape;
+    }
+
+    private static <T> Callable<T> withRequestContext(Long deadline, QueryTrace trace, Callable<T> task) {
+        return () -> {
+            Long previousDeadline = QueryDeadline.current();
+            QueryTrace previousTrace = QueryTrace.current();
+            QueryDeadline.restore(deadline);
+            QueryTrace.restore(trace);
+            try {
+                return task.call();
+            } finally {
+                QueryDeadline.restore(previousDeadline);
+                QueryTrace.restore(previousTrace);
+            }
+        };
+    }
+
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for batch search", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdown();
+    }
+}
@@ -0,0 +1,38 @@
+package study.querydsl.repository.bulk;
+
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 청크 단위 벌크 연산의 진행 상황 저장소
+ * 완료된 청크의 시작 member_id를 기록해두고, 실패 후 같은 체크포인트로 다시 실행하면
+ * 이미 커밋된 청크는 건너뛴다. (member.age + 1 같은 비멱등 연산도 중복 적용되지 않는다.)
+ */
+@Getter
+public class BulkCheckpoint {
+
+    private final int chunkSize;
+    private final Set<Long> completedChunks = ConcurrentHashMap.newKeySet();
+
+    public BulkCheckpoint(int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+        }
+        this.chunkSize = chunkSize;
+    }
+
+    public boolean isCompleted(long chunkStart) {
+        return completedChunks.contains(chunkStart);
+    }
+
+    void markCompleted(long chunkStart) {
+        completedChunks.add(chunkStart);
+    }
+
+    public Set<Long> getCompletedChunks() {
+        return Collections.unmodifiableSet(completedChunks);
+    }
+}
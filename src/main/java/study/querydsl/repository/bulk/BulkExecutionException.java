@@ -0,0 +1,20 @@
+package study.querydsl.repository.bulk;
+
+import lombok.Getter;
+
+/**
+ * 청크 실행 중 실패
+ * 이미 커밋된 청크는 checkpoint에 남아 있으므로 같은 checkpoint로 다시 실행하면 이어서 진행된다.
+ */
+@Getter
+public class BulkExecutionException extends RuntimeException {
+
+    private final BulkCheckpoint checkpoint;
+    private final BulkProgress progress;
+
+    public BulkExecutionException(BulkCheckpoint checkpoint, BulkProgress progress, Throwable cause) {
+        super("bulk execution failed after " + progress.getCompletedChunks() + "/" + progress.getTotalChunks() + " chunks", cause);
+        this.checkpoint = checkpoint;
+        this.progress = progress;
+    }
+}
@@ -0,0 +1,36 @@
+package study.querydsl.repository.bulk;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 벌크 연산 진행률 스냅샷 (청크 하나가 커밋될 때마다 생성)
+ */
+@Getter
+@ToString
+public class BulkProgress {
+
+    private final int totalChunks;
+    private final int completedChunks;
+    private final long affectedRows;
+    private final long elapsedMillis;
+
+    public BulkProgress(int totalChunks, int completedChunks, long affectedRows, long elapsedMillis) {
+        this.totalChunks = totalChunks;
+        this.completedChunks = completedChunks;
+        this.affectedRows = affectedRows;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public boolean isDone() {
+        return completedChunks == totalChunks;
+    }
+
+    public double getRowsPerSecond() {
+        return elapsedMillis == 0 ? affectedRows : affectedRows * 1000.0 / elapsedMillis;
+    }
+
+    public double getChunksPerSecond() {
+        return elapsedMillis == 0 ? completedChunks : completedChunks * 1000.0 / elapsedMillis;
+    }
+}
@@ -0,0 +1,199 @@
+package study.querydsl.repository.bulk;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.event.ChangeRecord;
+import study.querydsl.event.ChangeStream;
+import study.querydsl.event.ChangeType;
+import study.querydsl.event.ChangedEntity;
+import study.querydsl.scheduling.QueryScheduler;
+import study.querydsl.scheduling.WorkloadClass;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 청크 단위 벌크 update / delete
+ *
+ * queryFactory.update(member)...execute() 한 방은 대상 전체에 락을 잡고 undo 로그를 키운다.
+ * 여기서는 member_id 범위를 chunkSize 단위로 잘라 청크마다 별도 트랜잭션(REQUIRES_NEW)으로
+ * 제한된 워커 풀에서 실행하므로 한 번에 잡히는 락이 청크 크기로 제한된다.
+ *
+ * 주의: 벌크 연산은 조인을 쓸 수 없으므로 where 조건은 member 컬럼만 참조해야 한다.
+ * 청크마다 Hibernate가 2차 캐시의 Member / Team.members 리전을 비우고, 커밋된 청크의 id 범위를 변경 스트림에 발행한다.
+ * 청크는 QueryScheduler의 BULK 예산으로 실행되므로 화면 검색이 기다리고 있으면 다음 청크가 양보한다.
+ */
+@Slf4j
+@Component
+@Lazy // 기동에 필요 없으므로 처음 쓰일 때 생성
+public class MemberBulkExecutor {
+
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate transactionTemplate;
+    private final ChangeStream changeStream;
+    private final QueryScheduler queryScheduler;
+    private final ExecutorService workers;
+    private final int chunkSize;
+
+    public MemberBulkExecutor(EntityManager em,
+                              PlatformTransactionManager transactionManager,
+                              ChangeStream changeStream,
+                              QueryScheduler queryScheduler,
+                              @Value("${querydsl.bulk.chunk-size:1000}") int chunkSize,
+                              @Value("${querydsl.bulk.workers:2}") int workers) {
+        this.queryFactory = new JPAQueryFactory(em);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.changeStream = changeStream;
+        this.queryScheduler = queryScheduler;
+        this.chunkSize = chunkSize;
+        // 큐가 차면 호출 스레드가 직접 청크를 실행하므로 청크 제출 속도가 워커 처리 속도로 제한된다.
+        this.workers = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(workers),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "member-bulk");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    public BulkCheckpoint newCheckpoint() {
+        return new BulkCheckpoint(chunkSize);
+    }
+
+    /**
+     * ex) update(member.age.lt(28), clause -> clause.set(member.username, "비회원"), checkpoint, progress -> ...)
+     */
+    public BulkProgress update(Predicate where, Consumer<JPAUpdateClause> setter,
+                               BulkCheckpoint checkpoint, Consumer<BulkProgress> listener) {
+        return run(where, checkpoint, listener, ChangeType.BULK_UPDATE, range -> {
+            JPAUpdateClause clause = queryFactory.update(member);
+            setter.accept(clause);
+            return clause.where(where, range).execute();
+        });
+    }
+
+    public BulkProgress delete(Predicate where, BulkCheckpoint checkpoint, Consumer<BulkProgress> listener) {
+        return run(where, checkpoint, listener, ChangeType.BULK_DELETE, range -> queryFactory
+                .delete(member)
+                .where(where, range)
+                .execute());
+    }
+
+    private BulkProgress run(Predicate where, BulkCheckpoint checkpoint, Consumer<BulkProgress> listener,
+                             ChangeType changeType, Function<BooleanExpression, Long> chunkAction) {
+        List<Long> chunkStarts = pendingChunks(where, checkpoint);
+        int totalChunks = chunkStarts.size();
+        long startedAt = System.currentTimeMillis();
+
+        AtomicInteger completedChunks = new AtomicInteger();
+        AtomicLong affectedRows = new AtomicLong();
+        AtomicBoolean failed = new AtomicBoolean();
+
+        List<Future<?>> futures = new ArrayList<>(totalChunks);
+        for (Long chunkStart : chunkStarts) {
+            futures.add(workers.submit(() -> {
+                if (failed.get()) {
+                    return;
+                }
+                BooleanExpression range = member.id.goe(chunkStart).and(member.id.lt(chunkStart + checkpoint.getChunkSize()));
+                Long affected = queryScheduler.call(WorkloadClass.BULK,
+                        () -> transactionTemplate.execute(status -> chunkAction.apply(range)));
+                checkpoint.markCompleted(chunkStart);
+                if (affected != null && affected > 0) {
+                    changeStream.publish(ChangeRecord.range(ChangedEntity.MEMBER, changeType,
+                            chunkStart, chunkStart + checkpoint.getChunkSize() - 1));
+                }
+
+                BulkProgress progress = new BulkProgress(totalChunks, completedChunks.incrementAndGet(),
+                        affectedRows.addAndGet(affected == null ? 0 : affected),
+                        System.currentTimeMillis() - startedAt);
+                listener.accept(progress);
+            }));
+        }
+
+        Throwable firstError = null;
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                failed.set(true);
+                if (firstError == null) {
+                    firstError = e.getCause();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failed.set(true);
+                if (firstError == null) {
+                    firstError = e;
+                }
+            }
+        }
+
+        BulkProgress result = new BulkProgress(totalChunks, completedChunks.get(), affectedRows.get(),
+                System.currentTimeMillis() - startedAt);
+        if (firstError != null) {
+            throw new BulkExecutionException(checkpoint, result, firstError);
+        }
+        log.info("member bulk finished: {}", result);
+        return result;
+    }
+
+    /**
+     * 대상의 member_id 최소/최대 범위를 chunkSize 배수로 정렬해서 자른다.
+     * 경계가 항상 같으므로 재실행 시에도 checkpoint의 청크와 정확히 일치한다.
+     */
+    private List<Long> pendingChunks(Predicate where, BulkCheckpoint checkpoint) {
+        Tuple bounds = queryFactory
+                .select(member.id.min(), member.id.max())
+                .from(member)
+                .where(where)
+                .fetchOne();
+
+        List<Long> chunkStarts = new ArrayList<>();
+        Long minId = bounds == null ? null : bounds.get(member.id.min());
+        Long maxId = bounds == null ? null : bounds.get(member.id.max());
+        if (minId == null || maxId == null) {
+            return chunkStarts;
+        }
+
+        int size = checkpoint.getChunkSize();
+        for (long start = Math.floorDiv(minId, size) * size; start <= maxId; start += size) {
+            if (!checkpoint.isCompleted(start)) {
+                chunkStarts.add(start);
+            }
+        }
+        return chunkStarts;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdown();
+    }
+}
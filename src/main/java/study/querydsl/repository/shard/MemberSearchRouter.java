@@ -0,0 +1,45 @@
+package study.querydsl.repository.shard;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import study.querydsl.repository.MemberRepository;
+import study.querydsl.repository.MemberSearchRepository;
+
+/**
+ * 엔드포인트가 쓸 회원 검색 저장소를 고른다.
+ * querydsl.shard.enabled=true 면 ShardedMemberRepository(샤드 scatter-gather), 아니면 기본 DB의 MemberRepository
+ *
+ * 샤드는 MemberSearchRepository 계약(search / searchPageSimple / searchPageComplex)만 구현하므로
+ * sparse fieldset / 추정 count / 배치 검색처럼 기본 DB에만 있는 검색은 샤드 모드에서 ShardingUnsupportedException (501)
+ */
+@Component
+public class MemberSearchRouter {
+
+    private final MemberRepository memberRepository;
+    private final ShardedMemberRepository shardedMemberRepository;
+
+    public MemberSearchRouter(MemberRepository memberRepository,
+                              ObjectProvider<ShardedMemberRepository> shardedMemberRepository) {
+        this.memberRepository = memberRepository;
+        this.shardedMemberRepository = shardedMemberRepository.getIfAvailable();
+    }
+
+    public boolean isSharded() {
+        return shardedMemberRepository != null;
+    }
+
+    public MemberSearchRepository search() {
+        return isSharded() ? shardedMemberRepository : memberRepository;
+    }
+
+    /**
+     * 기본 DB 전용 검색
+     * @param feature 샤드 모드에서 거절할 때 메시지에 쓸 이름
+     */
+    public MemberRepository singleStore(String feature) {
+        if (isSharded()) {
+            throw new ShardingUnsupportedException(feature);
+        }
+        return memberRepository;
+    }
+}
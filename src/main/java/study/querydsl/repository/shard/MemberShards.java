@@ -0,0 +1,104 @@
+package study.querydsl.repository.shard;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.orm.jpa.EntityManagerFactoryBuilder;
+import org.springframework.boot.orm.jpa.hibernate.SpringImplicitNamingStrategy;
+import org.springframework.boot.orm.jpa.hibernate.SpringPhysicalNamingStrategy;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import study.querydsl.entity.Member;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 회원 샤드 (querydsl.shard.enabled=true 일 때만 등록)
+ *
+ * 샤드마다 DataSource / EntityManagerFactory를 따로 만든다.
+ * 빈으로 등록하면 스프링 부트 기본 EntityManagerFactory 자동 설정이 빠지므로 내부에서만 들고 있는다.
+ *
+ * 파티션 키는 팀 이름 해시다. 팀과 그 팀의 회원은 항상 같은 샤드에 있으므로
+ * teamName 조건이 있는 검색은 샤드 하나로만 보낸다. 팀이 없는 회원은 username 해시로 나눈다.
+ * (id는 샤드별 시퀀스로 만들어지므로 샤드 간에는 겹칠 수 있다.)
+ *
+ * 샤드 모드에서 기본 DataSource에는 회원 데이터가 없다. 회원 검색 엔드포인트는 MemberSearchRouter가 샤드로 보내고,
+ * 샤드로 나눌 수 없는 검색(fields / v4 추정 count / 배치)은 501로 거절한다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "querydsl.shard.enabled", havingValue = "true")
+public class MemberShards {
+
+    private final List<DataSource> dataSources = new ArrayList<>();
+    private final List<EntityManagerFactory> entityManagerFactories = new ArrayList<>();
+
+    public MemberShards(EntityManagerFactoryBuilder builder,
+                        @Value("${querydsl.shard.count:2}") int count,
+                        @Value("${querydsl.shard.url-pattern:jdbc:h2:mem:member_shard_%d;DB_CLOSE_DELAY=-1}") String urlPattern,
+                        @Value("${querydsl.shard.ddl-auto:create}") String ddlAuto) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("hibernate.hbm2ddl.auto", ddlAuto);
+        // 기본 EntityManagerFactory와 같은 테이블 / 컬럼 이름을 쓰도록 스프링 부트 네이밍 전략을 그대로 지정
+        properties.put("hibernate.physical_naming_strategy", SpringPhysicalNamingStrategy.class.getName());
+        properties.put("hibernate.implicit_naming_strategy", SpringImplicitNamingStrategy.class.getName());
+        // 샤드 간 id가 겹치므로 기본 CacheManager의 2차 캐시 리전을 함께 쓰면 안 된다.
+        properties.put("hibernate.cache.use_second_level_cache", "false");
+
+        for (int i = 0; i < count; i++) {
+            DataSource dataSource = DataSourceBuilder.create()
+                    .url(String.format(urlPattern, i))
+                    .username("sa")
+                    .password("")
+                    .build();
+
+            LocalContainerEntityManagerFactoryBean factoryBean = builder
+                    .dataSource(dataSource)
+                    .packages(Member.class)
+                    .persistenceUnit("member_shard_" + i)
+                    .properties(properties)
+                    .build();
+            factoryBean.afterPropertiesSet();
+
+            dataSources.add(dataSource);
+            entityManagerFactories.add(factoryBean.getObject());
+        }
+        log.info("member shards ready: {}", count);
+    }
+
+    public int size() {
+        return entityManagerFactories.size();
+    }
+
+    public EntityManagerFactory get(int shard) {
+        return entityManagerFactories.get(shard);
+    }
+
+    public int shardOfTeam(String teamName) {
+        return Math.floorMod(teamName.hashCode(), size());
+    }
+
+    public int shardOfMember(String teamName, String username) {
+        return StringUtils.hasText(teamName) ? shardOfTeam(teamName) : Math.floorMod(username.hashCode(), size());
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        entityManagerFactories.forEach(EntityManagerFactory::close);
+        for (DataSource dataSource : dataSources) {
+            if (dataSource instanceof Closeable) {
+                ((Closeable) dataSource).close();
+            }
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package study.querydsl.repository.shard;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Repository;
+import org.springframework.util.StringUtils;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberSearchQueries;
+import study.querydsl.repository.MemberSearchRepository;
+import study.querydsl.repository.MemberSorts;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityTransaction;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 샤드 scatter-gather 검색
+ * MemberRepositoryImpl과 같은 MemberSearchRepository 계약을 샤드에 나눠 실행한다.
+ * 조건 / select 컬럼 / 정렬은 MemberSearchQueries, MemberSorts를 그대로 쓴다.
+ *
+ * - teamName 조건이 있으면 해당 팀의 샤드 하나만 조회한다.
+ * - 없으면 모든 샤드를 병렬로 조회한 뒤, 샤드별로 정렬된 결과를 요청한 정렬로 k-way merge 한다.
+ *   샤드 간 id가 겹칠 수 있으므로 정렬 값이 모두 같으면 (샤드 번호, id) 순이다.
+ * - 페이징은 샤드마다 offset + size 건을 가져와 merge 후 offset을 건너뛰고, total은 샤드별 count의 합이다.
+ *
+ * 샤드 모드에서는 MemberController의 v1 ~ v3 검색이 MemberSearchRouter를 거쳐 이 리포지토리를 쓰고,
+ * InitMember도 기본 DB 대신 샤드에 시딩한다.
+ */
+@Repository
+@ConditionalOnProperty(name = "querydsl.shard.enabled", havingValue = "true")
+public class ShardedMemberRepository implements MemberSearchRepository {
+
+    private final MemberShards shards;
+    private final ExecutorService executor;
+
+    public ShardedMemberRepository(MemberShards shards) {
+        this.shards = shards;
+        this.executor = Executors.newFixedThreadPool(shards.size());
+    }
+
+    public Team saveTeam(Team newTeam) {
+        return inTransaction(shards.shardOfTeam(newTeam.getName()), em -> {
+            em.persist(newTeam);
+            return newTeam;
+        });
+    }
+
+    // 회원은 소속 팀과 같은 샤드에 저장된다. (팀은 saveTeam으로 먼저 저장되어 있어야 한다.)
+    public Member save(Member newMember) {
+        String teamName = newMember.getTeam() == null ? null : newMember.getTeam().getName();
+        return inTransaction(shards.shardOfMember(teamName, newMember.getUsername()), em -> {
+            em.persist(newMember);
+            return newMember;
+        });
+    }
+
+    /**
+     * 샤드별로 모아 샤드마다 한 트랜잭션에서 저장한다. (시딩용, 팀은 saveTeam으로 먼저 저장되어 있어야 한다.)
+     * 영속성 컨텍스트가 계속 커지지 않도록 flushSize건마다 비운다.
+     */
+    public void saveAll(List<Member> newMembers, int flushSize) {
+        Map<Integer, List<Member>> byShard = newMembers.stream()
+                .collect(Collectors.groupingBy(newMember -> shards.shardOfMember(
+                        newMember.getTeam() == null ? null : newMember.getTeam().getName(), newMember.getUsername())));
+        byShard.forEach((shard, members) -> inTransaction(shard, em -> {
+            for (int i = 0; i < members.size(); i++) {
+                em.persist(members.get(i));
+                if ((i + 1) % flushSize == 0) {
+                    em.flush();
+                    em.clear();
+                }
+            }
+            return null;
+        }));
+    }
+
+    public boolean isEmpty() {
+        return scatter(new MemberSearchCondition(), queryFactory -> queryFactory
+                .selectOne()
+                .from(team)
+                .fetchFirst())
+                .stream()
+                .allMatch(Objects::isNull);
+    }
+
+    @Override
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        List<List<MemberTeamDto>> parts = scatter(condition, queryFactory ->
+                contentQuery(queryFactory, condition, Pageable.unpaged(), null));
+        return merge(parts, MemberSorts.toComparator(Pageable.unpaged()), 0, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
+        List<MemberTeamDto> content = pageContent(condition, pageable);
+        return new PageImpl<>(content, pageable, count(condition));
+    }
+
+    @Override
+    public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
+        List<MemberTeamDto> content = pageContent(condition, pageable);
+        // 첫 페이지 / 마지막 페이지면 count를 샤드에 보내지 않는다.
+        return PageableExecutionUtils.getPage(content, pageable, () -> count(condition));
+    }
+
+    private List<MemberTeamDto> pageContent(MemberSearchCondition condition, Pageable pageable) {
+        // 어느 샤드에서 몇 건이 올지 모르므로 샤드마다 앞에서부터 offset + size 건을 가져온다.
+        long window = pageable.getOffset() + pageable.getPageSize();
+        List<List<MemberTeamDto>> parts = scatter(condition, queryFactory ->
+                contentQuery(queryFactory, condition, pageable, window));
+        return merge(parts, MemberSorts.toComparator(pageable), pageable.getOffset(), pageable.getPageSize());
+    }
+
+    private long count(MemberSearchCondition condition) {
+        return scatter(condition, queryFactory -> MemberSearchQueries.withTeamJoin(
+                        MemberSearchQueries.count(queryFactory, searchConditions(condition)))
+                        .fetchOne())
+                .stream()
+                .filter(Objects::nonNull)
+                .mapToLong(Long::longValue)
+                .sum();
+    }
+
+    private <T> List<T> scatter(MemberSearchCondition condition, Function<JPAQueryFactory, T> query) {
+        List<Integer> targets = StringUtils.hasText(condition.getTeamName())
+                ? List.of(shards.shardOfTeam(condition.getTeamName()))
+                : IntStream.range(0, shards.size()).boxed().collect(Collectors.toList());
+
+        List<CompletableFuture<T>> futures = targets.stream()
+                .map(shard -> CompletableFuture.supplyAsync(() -> inShard(shard, query), executor))
+                .collect(Collectors.toList());
+        return futures.stream().map(CompletableFuture::join).collect(Collectors.toList());
+    }
+
+    private <T> T inShard(int shard, Function<JPAQueryFactory, T> query) {
+        EntityManager em = shards.get(shard).createEntityManager();
+        try {
+            return query.apply(new JPAQueryFactory(em));
+        } finally {
+            em.close();
+        }
+    }
+
+    private <T> T inTransaction(int shard, Function<EntityManager, T> work) {
+        EntityManager em = shards.get(shard).createEntityManager();
+        EntityTransaction tx = em.getTransaction();
+        try {
+            tx.begin();
+            T result = work.apply(em);
+            tx.commit();
+            return result;
+        } catch (RuntimeException e) {
+            if (tx.isActive()) {
+                tx.rollback();
+            }
+            throw e;
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * 샤드별로 정렬된 결과를 k-way merge 해서 skip 건 이후 limit 건만 돌려준다.
+     * parts는 샤드 번호 순이고, order가 같으면 샤드 번호가 작은 쪽이 앞이다.
+     */
+    static List<MemberTeamDto> merge(List<List<MemberTeamDto>> parts, Comparator<MemberTeamDto> order,
+                                     long skip, int limit) {
+        PriorityQueue<Cursor> heads = new PriorityQueue<>(Comparator
+                .<Cursor, MemberTeamDto>comparing(Cursor::current, order)
+                .thenComparingInt(Cursor::shard));
+        for (int shard = 0; shard < parts.size(); shard++) {
+            if (!parts.get(shard).isEmpty()) {
+                heads.add(new Cursor(shard, parts.get(shard)));
+            }
+        }
+
+        List<MemberTeamDto> result = new ArrayList<>();
+        long index = 0;
+        while (!heads.isEmpty() && result.size() < limit) {
+            Cursor head = heads.poll();
+            if (index++ >= skip) {
+                result.add(head.current());
+            }
+            if (head.advance()) {
+                heads.add(head);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 기본 DB와 같은 컬럼 / 조건 / 정렬로 샤드 하나를 조회한다.
+     * teamName은 TeamNameCache(기본 DB의 팀 id) 대신 이 샤드의 team 테이블에서 한 번에 읽어 채운다.
+     */
+    private List<MemberTeamDto> contentQuery(JPAQueryFactory queryFactory, MemberSearchCondition condition,
+                                             Pageable pageable, Long limit) {
+        JPAQuery<Tuple> query = MemberSearchQueries.content(queryFactory, searchConditions(condition))
+                .orderBy(MemberSorts.toOrderSpecifiers(pageable));
+        if (limit != null) {
+            query.limit(limit);
+        }
+        List<Tuple> rows = MemberSearchQueries.withTeamJoin(query).fetch();
+
+        List<Long> teamIds = rows.stream()
+                .map(row -> row.get(member.team.id))
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList());
+        Map<Long, String> teamNames = teamIds.isEmpty() ? Map.of() : queryFactory
+                .select(team.id, team.name)
+                .from(team)
+                .where(team.id.in(teamIds))
+                .fetch()
+                .stream()
+                .collect(Collectors.toMap(row -> row.get(team.id), row -> row.get(team.name)));
+
+        return rows.stream()
+                .map(row -> {
+                    Long teamId = row.get(member.team.id);
+                    return new MemberTeamDto(
+                            row.get(member.id),
+                            row.get(member.username),
+                            row.get(member.age),
+                            teamId,
+                            teamId == null ? null : teamNames.get(teamId));
+                })
+                .collect(Collectors.toList());
+    }
+
+    // 샤드마다 팀 id가 다르므로 teamName은 team.name 조건으로 (조인은 withTeamJoin()이 붙인다)
+    private Predicate[] searchConditions(MemberSearchCondition condition) {
+        return MemberSearchQueries.conditions(condition, MemberSearchQueries::teamNameEq);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private static class Cursor {
+        private final int shard;
+        private final List<MemberTeamDto> part;
+        private int position;
+
+        private Cursor(int shard, List<MemberTeamDto> part) {
+            this.shard = shard;
+            this.part = part;
+        }
+
+        private int shard() {
+            return shard;
+        }
+
+        private MemberTeamDto current() {
+            return part.get(position);
+        }
+
+        private boolean advance() {
+            return ++position < part.size();
+        }
+    }
+}
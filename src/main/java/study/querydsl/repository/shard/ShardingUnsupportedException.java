@@ -0,0 +1,15 @@
+package study.querydsl.repository.shard;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * querydsl.shard.enabled=true 일 때 샤드로 나눠 실행할 수 없는 검색을 요청한 경우
+ */
+@ResponseStatus(HttpStatus.NOT_IMPLEMENTED)
+public class ShardingUnsupportedException extends RuntimeException {
+
+    public ShardingUnsupportedException(String feature) {
+        super(feature + " is not supported with querydsl.shard.enabled=true");
+    }
+}
@@ -0,0 +1,56 @@
+package study.querydsl.repository.timing;
+
+import com.p6spy.engine.common.ResultSetInformation;
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+
+/**
+ * p6spy 리스너 - 열려 있는 구간(begin ~ end) 동안 이 스레드의 statement 실행 / ResultSet.next() 시간을 더한다.
+ * p6spy 스타터가 JdbcEventListener 빈을 프록시 DataSource에 등록한다.
+ * 구간 밖의 JDBC 호출(영속성 컨텍스트 flush, em.find 등)은 세지 않는다.
+ */
+@Component
+public class JdbcTimingListener extends SimpleJdbcEventListener {
+
+    private static final ThreadLocal<long[]> WINDOW = new ThreadLocal<>();
+
+    // 이전 구간을 돌려주므로 end()에 그대로 넘긴다.
+    static long[] begin() {
+        long[] previous = WINDOW.get();
+        WINDOW.set(new long[1]);
+        return previous;
+    }
+
+    static long end(long[] previous) {
+        long[] window = WINDOW.get();
+        long elapsed = window == null ? 0 : window[0];
+        if (previous == null) {
+            WINDOW.remove();
+        } else {
+            previous[0] += elapsed;
+            WINDOW.set(previous);
+        }
+        return elapsed;
+    }
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        add(timeElapsedNanos);
+    }
+
+    @Override
+    public void onAfterResultSetNext(ResultSetInformation resultSetInformation, long timeElapsedNanos,
+                                     boolean hasNext, SQLException e) {
+        add(timeElapsedNanos);
+    }
+
+    private static void add(long nanos) {
+        long[] window = WINDOW.get();
+        if (window != null) {
+            window[0] += nanos;
+        }
+    }
+}
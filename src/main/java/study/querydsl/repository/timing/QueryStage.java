@@ -0,0 +1,29 @@
+package study.querydsl.repository.timing;
+
+/**
+ * 리포지토리 쿼리 한 번의 구간
+ * SERIALIZE -> TRANSLATE -> JDBC / HYDRATE -> MAP 순서로 지나간다.
+ */
+public enum QueryStage {
+
+    // Querydsl 메타데이터 -> JPQL 문자열 (JPQLSerializer)
+    SERIALIZE("serialize"),
+    // em.createQuery() - HQL 파싱 / SQL 변환 (쿼리 플랜 캐시에 있으면 조회만), 파라미터 / 힌트 설정
+    TRANSLATE("translate"),
+    // statement 실행 + ResultSet.next() (p6spy로 잰다.)
+    JDBC("jdbc"),
+    // getResultList()에서 JDBC를 뺀 나머지 - 자동 flush, 행 -> Object[] / Tuple 변환
+    HYDRATE("hydrate"),
+    // Tuple -> MemberTeamDto / Map 변환 (리포지토리)
+    MAP("map");
+
+    private final String label;
+
+    QueryStage(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+}
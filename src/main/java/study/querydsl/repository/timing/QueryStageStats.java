@@ -0,0 +1,30 @@
+package study.querydsl.repository.timing;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 구간 하나의 지연시간 분포 스냅샷 (ms, 기동 이후 누적)
+ */
+@Getter
+@ToString
+public class QueryStageStats {
+
+    private final String stage;
+    private final long count;
+    private final double mean;
+    private final double p50;
+    private final double p90;
+    private final double p99;
+    private final double max;
+
+    public QueryStageStats(String stage, long count, double mean, double p50, double p90, double p99, double max) {
+        this.stage = stage;
+        this.count = count;
+        this.mean = mean;
+        this.p50 = p50;
+        this.p90 = p90;
+        this.p99 = p99;
+        this.max = max;
+    }
+}
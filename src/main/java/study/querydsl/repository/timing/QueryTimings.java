@@ -0,0 +1,88 @@
+package study.querydsl.repository.timing;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 구간별 지연시간 히스토그램 (HdrHistogram, us 단위)
+ *
+ * 기록은 쿼리 스레드에서 Recorder로 락 없이 하고,
+ * 조회할 때 그동안 쌓인 구간 히스토그램을 누적 히스토그램에 합친다.
+ * 요청에 QueryTrace가 켜져 있으면 같은 값을 그 요청에도 더한다.
+ * GET /actuator/querytimings (QueryTimingsEndpoint)
+ */
+@Component
+public class QueryTimings {
+
+    private final Map<QueryStage, Recorder> recorders = new EnumMap<>(QueryStage.class);
+    private final Map<QueryStage, Histogram> totals = new EnumMap<>(QueryStage.class);
+
+    public QueryTimings() {
+        for (QueryStage stage : QueryStage.values()) {
+            // 유효숫자 3자리, 범위는 자동 확장
+            recorders.put(stage, new Recorder(3));
+            totals.put(stage, new Histogram(3));
+        }
+    }
+
+    public void record(QueryStage stage, long elapsedNanos) {
+        long nanos = Math.max(0, elapsedNanos);
+        recorders.get(stage).recordValue(TimeUnit.NANOSECONDS.toMicros(nanos));
+        QueryTrace trace = QueryTrace.current();
+        if (trace != null) {
+            trace.add(stage, nanos);
+        }
+    }
+
+    // 쿼리 한 번이 끝날 때 (TimedJPAQuery)
+    void queryExecuted() {
+        QueryTrace trace = QueryTrace.current();
+        if (trace != null) {
+            trace.queryExecuted();
+        }
+    }
+
+    public <T> T time(QueryStage stage, Supplier<T> action) {
+        long start = System.nanoTime();
+        try {
+            return action.get();
+        } finally {
+            record(stage, System.nanoTime() - start);
+        }
+    }
+
+    public synchronized List<QueryStageStats> stats() {
+        List<QueryStageStats> stats = new ArrayList<>();
+        for (QueryStage stage : QueryStage.values()) {
+            Histogram total = totals.get(stage);
+            total.add(recorders.get(stage).getIntervalHistogram());
+            stats.add(new QueryStageStats(stage.getLabel(), total.getTotalCount(),
+                    millis(total.getMean()),
+                    millis(total.getValueAtPercentile(50)),
+                    millis(total.getValueAtPercentile(90)),
+                    millis(total.getValueAtPercentile(99)),
+                    millis(total.getMaxValue())));
+        }
+        return stats;
+    }
+
+    // 워밍업처럼 운영 지표에 섞이면 안 되는 구간을 지운다.
+    public synchronized void reset() {
+        for (QueryStage stage : QueryStage.values()) {
+            recorders.get(stage).reset();
+            totals.get(stage).reset();
+        }
+    }
+
+    private static double millis(double micros) {
+        return micros / 1000.0;
+    }
+}
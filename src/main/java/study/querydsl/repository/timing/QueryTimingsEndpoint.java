@@ -0,0 +1,24 @@
+package study.querydsl.repository.timing;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * GET /actuator/querytimings - 리포지토리 쿼리 구간별 count / mean / p50 / p90 / p99 / max (ms)
+ */
+@Component
+@Endpoint(id = "querytimings")
+@RequiredArgsConstructor
+public class QueryTimingsEndpoint {
+
+    private final QueryTimings timings;
+
+    @ReadOperation
+    public List<QueryStageStats> stages() {
+        return timings.stats();
+    }
+}
@@ -0,0 +1,72 @@
+package study.querydsl.repository.timing;
+
+import java.util.Locale;
+import java.util.StringJoiner;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 요청 하나의 구간별 누적 시간 (스레드 로컬)
+ *
+ * 요청 헤더 X-Query-Trace가 있으면 인터셉터가 start()로 추적을 켜고,
+ * 응답 직전에 toServerTiming()을 Server-Timing 헤더로 내보낸다.
+ * 배치 검색처럼 워커 스레드로 넘길 때는 current() / restore()로 같은 객체를 넘기므로 스레드 안전하게 더한다.
+ * 추적이 없는 스레드에서는 QueryTimings가 히스토그램에만 기록한다.
+ */
+public final class QueryTrace {
+
+    private static final ThreadLocal<QueryTrace> CURRENT = new ThreadLocal<>();
+
+    private final AtomicLongArray nanos = new AtomicLongArray(QueryStage.values().length);
+    private final LongAdder queries = new LongAdder();
+
+    public static QueryTrace start() {
+        QueryTrace trace = new QueryTrace();
+        CURRENT.set(trace);
+        return trace;
+    }
+
+    public static QueryTrace current() {
+        return CURRENT.get();
+    }
+
+    public static void restore(QueryTrace trace) {
+        if (trace == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(trace);
+        }
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    void add(QueryStage stage, long elapsedNanos) {
+        nanos.addAndGet(stage.ordinal(), elapsedNanos);
+    }
+
+    void queryExecuted() {
+        queries.increment();
+    }
+
+    public long getNanos(QueryStage stage) {
+        return nanos.get(stage.ordinal());
+    }
+
+    public long getQueries() {
+        return queries.sum();
+    }
+
+    /**
+     * ex) serialize;dur=0.041, translate;dur=0.012, jdbc;dur=1.204, hydrate;dur=0.087, map;dur=0.033, queries;desc="2"
+     */
+    public String toServerTiming() {
+        StringJoiner joiner = new StringJoiner(", ");
+        for (QueryStage stage : QueryStage.values()) {
+            joiner.add(String.format(Locale.ROOT, "%s;dur=%.3f", stage.getLabel(), getNanos(stage) / 1_000_000.0));
+        }
+        joiner.add("queries;desc=\"" + getQueries() + "\"");
+        return joiner.toString();
+    }
+}
@@ -0,0 +1,74 @@
+package study.querydsl.repository.timing;
+
+import com.querydsl.core.QueryModifiers;
+import com.querydsl.jpa.JPQLSerializer;
+import com.querydsl.jpa.impl.JPAQuery;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * fetch() / fetchOne()을 구간별로 재는 JPAQuery
+ *
+ * createQuery() = serialize() (SERIALIZE) + em.createQuery() 등 (TRANSLATE)
+ * 실행 = fetch 전체 - createQuery(), 그중 p6spy가 잰 시간이 JDBC, 나머지가 HYDRATE
+ * TimedJPAQueryFactory가 만들며, select()는 같은 인스턴스를 돌려주므로 체인 끝까지 유지된다.
+ */
+public class TimedJPAQuery<T> extends JPAQuery<T> {
+
+    private final QueryTimings timings;
+    private long serializeNanos;
+    private long createQueryNanos;
+
+    public TimedJPAQuery(EntityManager em, QueryTimings timings) {
+        super(em);
+        this.timings = timings;
+    }
+
+    @Override
+    public List<T> fetch() {
+        return timed(super::fetch);
+    }
+
+    @Override
+    public T fetchOne() {
+        return timed(super::fetchOne);
+    }
+
+    @Override
+    protected JPQLSerializer serialize(boolean forCountRow) {
+        long start = System.nanoTime();
+        JPQLSerializer serializer = super.serialize(forCountRow);
+        serializeNanos += System.nanoTime() - start;
+        return serializer;
+    }
+
+    @Override
+    protected Query createQuery(QueryModifiers modifiers, boolean forCount) {
+        long start = System.nanoTime();
+        Query query = super.createQuery(modifiers, forCount);
+        createQueryNanos += System.nanoTime() - start;
+        return query;
+    }
+
+    private <R> R timed(Supplier<R> action) {
+        serializeNanos = 0;
+        createQueryNanos = 0;
+        long[] previousWindow = JdbcTimingListener.begin();
+        long start = System.nanoTime();
+        try {
+            return action.get();
+        } finally {
+            long total = System.nanoTime() - start;
+            long jdbc = JdbcTimingListener.end(previousWindow);
+            long execute = Math.max(0, total - createQueryNanos);
+            timings.record(QueryStage.SERIALIZE, serializeNanos);
+            timings.record(QueryStage.TRANSLATE, createQueryNanos - serializeNanos);
+            timings.record(QueryStage.JDBC, jdbc);
+            timings.record(QueryStage.HYDRATE, execute - jdbc);
+            timings.queryExecuted();
+        }
+    }
+}
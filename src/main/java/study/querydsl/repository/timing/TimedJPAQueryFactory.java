@@ -0,0 +1,27 @@
+package study.querydsl.repository.timing;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+
+import javax.persistence.EntityManager;
+
+/**
+ * select() / selectFrom()이 TimedJPAQuery를 만드는 JPAQueryFactory
+ * update() / delete()는 그대로다.
+ */
+public class TimedJPAQueryFactory extends JPAQueryFactory {
+
+    private final EntityManager em;
+    private final QueryTimings timings;
+
+    public TimedJPAQueryFactory(EntityManager em, QueryTimings timings) {
+        super(em);
+        this.em = em;
+        this.timings = timings;
+    }
+
+    @Override
+    public JPAQuery<?> query() {
+        return new TimedJPAQuery<Void>(em, timings);
+    }
+}
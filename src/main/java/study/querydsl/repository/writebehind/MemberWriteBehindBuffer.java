@@ -0,0 +1,264 @@
+package study.querydsl.repository.writebehind;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 신규 Member write-behind 버퍼 (querydsl.write-behind.enabled=true 일 때만 등록)
+ *
+ * save() 호출마다 em.persist() 하는 대신 제한된 큐에 쌓아두고
+ * batchSize개가 모이거나 flushInterval이 지나면 한 트랜잭션에서 모아서 insert 한다.
+ * (hibernate.jdbc.batch_size 설정과 함께 써야 JDBC 배치로 나간다.)
+ *
+ * - 큐가 가득 차면 offerTimeout 동안 기다리고, 그래도 자리가 없으면 RejectedExecutionException
+ * - flush() : 호출 시점까지 들어온 Member가 모두 커밋될 때까지 기다린다. (read-your-writes)
+ *             그 중 커밋에 실패한 건이 있으면 MemberWriteBehindException
+ * - 큐 깊이 / 배치 크기 지표는 GET /actuator/writebehind (WriteBehindEndpoint)
+ *
+ * 배치는 별도(REQUIRES_NEW) 트랜잭션에서 커밋되므로 enqueue 한 쪽 트랜잭션이 롤백돼도 되돌아가지 않는다.
+ *
+ * 완료 판정은 Member마다 붙인 순번으로 한다.
+ * 배치가 끝나는 순서는 순번 순서와 다를 수 있으므로, 빈틈 없이 끝난 순번까지만 committedUpTo를 올린다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "querydsl.write-behind.enabled", havingValue = "true")
+public class MemberWriteBehindBuffer {
+
+    private final EntityManager em;
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<Entry> queue;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+    private final long offerTimeoutMillis;
+
+    // 배치 쓰기는 flusher 스레드와 flush() 호출 스레드가 번갈아 하므로 한 번에 하나만
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final Object progressMonitor = new Object();
+
+    private final AtomicLong sequence = new AtomicLong();
+    // 아래 세 필드는 progressMonitor로 보호한다.
+    private long committedUpTo;
+    private final TreeSet<Long> completedAhead = new TreeSet<>();
+    private final NavigableMap<Long, RuntimeException> failures = new TreeMap<>();
+
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final AtomicLong maxBatchSize = new AtomicLong();
+
+    private volatile boolean running = true;
+    private Thread flusher;
+
+    public MemberWriteBehindBuffer(EntityManager em,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${querydsl.write-behind.capacity:10000}") int capacity,
+                                   @Value("${querydsl.write-behind.batch-size:100}") int batchSize,
+                                   @Value("${querydsl.write-behind.flush-interval-ms:200}") long flushIntervalMillis,
+                                   @Value("${querydsl.write-behind.offer-timeout-ms:1000}") long offerTimeoutMillis) {
+        this.em = em;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.offerTimeoutMillis = offerTimeoutMillis;
+    }
+
+    @PostConstruct
+    public void start() {
+        flusher = new Thread(this::flushLoop, "member-write-behind");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    public void enqueue(Member member) {
+        if (member.getId() != null) {
+            throw new IllegalArgumentException("write-behind only accepts new members: " + member);
+        }
+        long seq = sequence.incrementAndGet();
+        boolean accepted;
+        try {
+            accepted = queue.offer(new Entry(seq, member), offerTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            accepted = false;
+        }
+        if (!accepted) {
+            // 거절된 순번은 호출자가 이미 예외로 알았으므로 완료로 치고 넘어간다.
+            complete(List.of(new Entry(seq, member)), null);
+            rejected.increment();
+            throw new RejectedExecutionException("member write-behind queue is full (" + queue.size() + ")");
+        }
+        enqueued.increment();
+    }
+
+    /**
+     * 호출 전에 순번을 받은 Member가 모두 처리될 때까지 블록한다.
+     * flusher를 기다리지 않고 남은 큐는 호출 스레드에서 바로 비운다.
+     *
+     * 그 범위에서 커밋에 실패한 Member가 있으면 MemberWriteBehindException을 던진다.
+     * 실패는 처음 확인한 flush() 한 번만 보고된다.
+     */
+    public void flush() {
+        long target = sequence.get();
+        List<Entry> batch = new ArrayList<>(batchSize);
+        while (committedUpTo() < target && queue.drainTo(batch, batchSize) > 0) {
+            write(batch);
+            batch.clear();
+        }
+        // flusher가 이미 꺼내간 배치가 있으면 그것까지 끝나길 기다린다.
+        synchronized (progressMonitor) {
+            while (committedUpTo < target) {
+                try {
+                    progressMonitor.wait(flushIntervalMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("interrupted while waiting for member write-behind flush", e);
+                }
+            }
+            NavigableMap<Long, RuntimeException> failedUpToTarget = failures.headMap(target, true);
+            if (!failedUpToTarget.isEmpty()) {
+                MemberWriteBehindException exception =
+                        new MemberWriteBehindException(failedUpToTarget.size(), failedUpToTarget.firstEntry().getValue());
+                failedUpToTarget.clear();
+                throw exception;
+            }
+        }
+    }
+
+    public WriteBehindStats getStats() {
+        return new WriteBehindStats(queue.size(), enqueued.sum(), rejected.sum(), written.sum(),
+                failed.sum(), batches.sum(), maxBatchSize.get());
+    }
+
+    private long committedUpTo() {
+        synchronized (progressMonitor) {
+            return committedUpTo;
+        }
+    }
+
+    private void flushLoop() {
+        List<Entry> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                Entry first = queue.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                // batchSize가 차거나 첫 건을 꺼낸 뒤 flushInterval이 지나면 쓴다.
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    Entry next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                write(batch);
+            } catch (InterruptedException e) {
+                // 종료 중 - 이미 꺼낸 건 버리지 않고 쓴다.
+                running = false;
+                write(batch);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<Entry> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        RuntimeException failure = null;
+        writeLock.lock();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (Entry entry : batch) {
+                    em.persist(entry.member);
+                }
+                em.flush();
+                em.clear();
+            });
+            written.add(batch.size());
+        } catch (RuntimeException e) {
+            failure = e;
+            failed.add(batch.size());
+            log.error("member write-behind batch failed: size={}", batch.size(), e);
+        } finally {
+            writeLock.unlock();
+            batches.increment();
+            maxBatchSize.accumulateAndGet(batch.size(), Math::max);
+            complete(batch, failure);
+        }
+    }
+
+    // 끝난 순번을 기록하고, 빈틈 없이 이어지는 데까지 committedUpTo를 올린다.
+    private void complete(List<Entry> entries, RuntimeException failure) {
+        synchronized (progressMonitor) {
+            for (Entry entry : entries) {
+                completedAhead.add(entry.seq);
+                if (failure != null) {
+                    failures.put(entry.seq, failure);
+                }
+            }
+            while (completedAhead.remove(committedUpTo + 1)) {
+                committedUpTo++;
+            }
+            progressMonitor.notifyAll();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        flusher.interrupt();
+        flusher.join(TimeUnit.SECONDS.toMillis(5));
+        try {
+            flush();
+        } catch (MemberWriteBehindException e) {
+            log.error("member write-behind dropped {} member(s) on shutdown", e.getFailedCount(), e);
+        }
+    }
+
+    private static final class Entry {
+
+        private final long seq;
+        private final Member member;
+
+        private Entry(long seq, Member member) {
+            this.seq = seq;
+            this.member = member;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package study.querydsl.repository.writebehind;
+
+import lombok.Getter;
+
+/**
+ * write-behind 배치 insert 실패
+ * flush() 호출 시점까지 들어온 Member 중 커밋되지 못한 건이 있으면 flush() 호출자에게 던진다.
+ * 실패한 Member는 다시 큐에 넣지 않으므로, 필요하면 호출자가 다시 save() 해야 한다.
+ */
+@Getter
+public class MemberWriteBehindException extends RuntimeException {
+
+    private final long failedCount;
+
+    public MemberWriteBehindException(long failedCount, Throwable cause) {
+        super("member write-behind failed to commit " + failedCount + " member(s)", cause);
+        this.failedCount = failedCount;
+    }
+}
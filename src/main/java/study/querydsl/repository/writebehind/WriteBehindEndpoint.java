@@ -0,0 +1,25 @@
+package study.querydsl.repository.writebehind;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * GET /actuator/writebehind - write-behind 큐 깊이, enqueue / 거절 / 쓰기 / 실패 수, 배치 수와 평균 / 최대 배치 크기
+ * (querydsl.write-behind.enabled=true 일 때만 등록)
+ */
+@Component
+@Endpoint(id = "writebehind")
+@ConditionalOnProperty(name = "querydsl.write-behind.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class WriteBehindEndpoint {
+
+    private final MemberWriteBehindBuffer buffer;
+
+    @ReadOperation
+    public WriteBehindStats stats() {
+        return buffer.getStats();
+    }
+}
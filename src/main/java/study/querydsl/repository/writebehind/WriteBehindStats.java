@@ -0,0 +1,35 @@
+package study.querydsl.repository.writebehind;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * write-behind 큐 / 배치 지표 스냅샷
+ */
+@Getter
+@ToString
+public class WriteBehindStats {
+
+    private final int queueDepth;
+    private final long enqueued;
+    private final long rejected;
+    private final long written;
+    private final long failed;
+    private final long batches;
+    private final long maxBatchSize;
+
+    public WriteBehindStats(int queueDepth, long enqueued, long rejected, long written,
+                            long failed, long batches, long maxBatchSize) {
+        this.queueDepth = queueDepth;
+        this.enqueued = enqueued;
+        this.rejected = rejected;
+        this.written = written;
+        this.failed = failed;
+        this.batches = batches;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    public double getAverageBatchSize() {
+        return batches == 0 ? 0 : (double) (written + failed) / batches;
+    }
+}
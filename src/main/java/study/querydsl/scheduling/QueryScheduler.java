@@ -0,0 +1,236 @@
+package study.querydsl.scheduling;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import study.querydsl.repository.QueryDeadline;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * 워크로드별 커넥션 예산 / 대기 큐 (INTERACTIVE, BULK)
+ *
+ * 같은 커넥션 풀을 쓰는 벌크 작업이 화면 검색의 p99를 밀어 올리지 않도록 리포지토리 호출 앞에서 입장을 제한한다.
+ * - 동시에 실행되는 수는 워크로드별 budget 이하, 전체는 pool-size 이하
+ * - BULK는 INTERACTIVE가 한 건이라도 기다리고 있으면 들어가지 못한다. (검색 우선)
+ *   bulk budget이 pool-size보다 작으므로 INTERACTIVE 몫의 커넥션은 항상 남는다.
+ * - 대기 수가 queue 한도를 넘으면 바로, 남은 데드라인(없으면 max-wait) 안에 들어가지 못하면 WorkloadRejectedException
+ * 이미 같은 워크로드로 입장한 스레드가 다시 호출하면(요청 안에서 findAll 등) 예산을 두 번 잡지 않고 그대로 실행한다.
+ * 다른 워크로드로 입장한 스레드는 그 워크로드의 예산을 따로 받는다. (INTERACTIVE 안의 BULK가 예산 밖에서 돌지 않도록)
+ *
+ * 지표는 GET /actuator/queryscheduler (QuerySchedulerEndpoint)
+ */
+@Component
+public class QueryScheduler {
+
+    private static final ThreadLocal<Permit> HELD = new ThreadLocal<>();
+
+    private final int poolSize;
+    private final Map<WorkloadClass, Lane> lanes = new EnumMap<>(WorkloadClass.class);
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+    private int running;
+
+    public QueryScheduler(@Value("${querydsl.scheduler.pool-size:${spring.datasource.hikari.maximum-pool-size:10}}") int poolSize,
+                          @Value("${querydsl.scheduler.interactive.budget:${querydsl.scheduler.pool-size:${spring.datasource.hikari.maximum-pool-size:10}}}") int interactiveBudget,
+                          @Value("${querydsl.scheduler.interactive.queue:200}") int interactiveQueue,
+                          @Value("${querydsl.scheduler.interactive.max-wait:1000}") long interactiveMaxWaitMillis,
+                          @Value("${querydsl.scheduler.bulk.budget:3}") int bulkBudget,
+                          @Value("${querydsl.scheduler.bulk.queue:20}") int bulkQueue,
+                          @Value("${querydsl.scheduler.bulk.max-wait:60000}") long bulkMaxWaitMillis) {
+        this.poolSize = poolSize;
+        lanes.put(WorkloadClass.INTERACTIVE, new Lane(Math.min(interactiveBudget, poolSize), interactiveQueue, interactiveMaxWaitMillis));
+        // 전체 풀을 BULK가 다 쓰지 못하도록 최소 한 개는 남긴다.
+        lanes.put(WorkloadClass.BULK, new Lane(Math.max(1, Math.min(bulkBudget, poolSize - 1)), bulkQueue, bulkMaxWaitMillis));
+    }
+
+    public <T> T call(WorkloadClass workload, Supplier<T> action) {
+        try (Permit permit = acquire(workload)) {
+            return action.get();
+        }
+    }
+
+    /**
+     * 예산을 받을 때까지 기다린다. 반드시 close() 해야 한다.
+     */
+    public Permit acquire(WorkloadClass workload) {
+        Permit held = HELD.get();
+        if (held != null && held.workload == workload) {
+            return Permit.NESTED;
+        }
+        Lane lane = lanes.get(workload);
+        long waitStart = System.nanoTime();
+        long remaining = maxWaitNanos(lane);
+
+        lock.lock();
+        try {
+            if (!canEnter(workload, lane)) {
+                await(workload, lane, remaining);
+            }
+            lane.running++;
+            running++;
+        } finally {
+            lock.unlock();
+        }
+
+        long admittedAt = System.nanoTime();
+        lane.admitted.increment();
+        lane.waitTimes.recordValue(TimeUnit.NANOSECONDS.toMicros(admittedAt - waitStart));
+        Permit permit = new Permit(this, workload, lane, admittedAt, held);
+        HELD.set(permit);
+        return permit;
+    }
+
+    // lock 안에서 호출
+    private void await(WorkloadClass workload, Lane lane, long remaining) {
+        if (lane.waiting >= lane.queueLimit) {
+            lane.rejected.increment();
+            throw new WorkloadRejectedException(workload, "queue is full (" + lane.queueLimit + ")");
+        }
+        lane.waiting++;
+        try {
+            while (!canEnter(workload, lane)) {
+                if (remaining <= 0) {
+                    lane.timedOut.increment();
+                    throw new WorkloadRejectedException(workload, "no connection budget within the wait limit");
+                }
+                remaining = released.awaitNanos(remaining);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            lane.timedOut.increment();
+            throw new WorkloadRejectedException(workload, "interrupted while waiting");
+        } finally {
+            lane.waiting--;
+            // INTERACTIVE 대기가 사라졌으면 막혀 있던 BULK가 다시 확인해야 한다.
+            released.signalAll();
+        }
+    }
+
+    private boolean canEnter(WorkloadClass workload, Lane lane) {
+        if (lane.running >= lane.budget || running >= poolSize) {
+            return false;
+        }
+        return workload != WorkloadClass.BULK || lanes.get(WorkloadClass.INTERACTIVE).waiting == 0;
+    }
+
+    private long maxWaitNanos(Lane lane) {
+        Long deadline = QueryDeadline.current();
+        return deadline != null
+                ? deadline - System.nanoTime()
+                : TimeUnit.MILLISECONDS.toNanos(lane.maxWaitMillis);
+    }
+
+    private void release(Permit permit) {
+        // 다른 스레드에서 닫을 수도 있으므로 이 스레드의 입장권일 때만 바깥 입장권으로 되돌린다.
+        if (HELD.get() == permit) {
+            if (permit.outer != null) {
+                HELD.set(permit.outer);
+            } else {
+                HELD.remove();
+            }
+        }
+        Lane lane = permit.lane;
+        lane.runTimes.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - permit.admittedAt));
+        lock.lock();
+        try {
+            lane.running--;
+            running--;
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public List<WorkloadStats> stats() {
+        List<WorkloadStats> stats = new ArrayList<>();
+        lock.lock();
+        try {
+            for (Map.Entry<WorkloadClass, Lane> entry : lanes.entrySet()) {
+                Lane lane = entry.getValue();
+                Histogram waits = lane.waitTotals;
+                Histogram runs = lane.runTotals;
+                waits.add(lane.waitTimes.getIntervalHistogram());
+                runs.add(lane.runTimes.getIntervalHistogram());
+                stats.add(new WorkloadStats(entry.getKey().name().toLowerCase(), lane.budget, lane.running, lane.waiting,
+                        lane.admitted.sum(), lane.rejected.sum(), lane.timedOut.sum(),
+                        millis(waits.getValueAtPercentile(50)), millis(waits.getValueAtPercentile(99)),
+                        millis(runs.getValueAtPercentile(50)), millis(runs.getValueAtPercentile(99))));
+            }
+        } finally {
+            lock.unlock();
+        }
+        return stats;
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    /**
+     * 입장권 - try-with-resources로 쓴다.
+     */
+    public static class Permit implements AutoCloseable {
+
+        // 이미 같은 워크로드로 입장한 스레드의 중첩 호출
+        private static final Permit NESTED = new Permit(null, null, null, 0, null);
+
+        private final QueryScheduler scheduler;
+        private final WorkloadClass workload;
+        private final Lane lane;
+        private final long admittedAt;
+        // 다른 워크로드로 중첩 입장했을 때 바깥 입장권 - 닫으면 HELD를 이걸로 되돌린다.
+        private final Permit outer;
+        private boolean closed;
+
+        private Permit(QueryScheduler scheduler, WorkloadClass workload, Lane lane, long admittedAt, Permit outer) {
+            this.scheduler = scheduler;
+            this.workload = workload;
+            this.lane = lane;
+            this.admittedAt = admittedAt;
+            this.outer = outer;
+        }
+
+        @Override
+        public void close() {
+            if (scheduler == null || closed) {
+                return;
+            }
+            closed = true;
+            scheduler.release(this);
+        }
+    }
+
+    // 워크로드 하나의 상태 - running / waiting은 lock 안에서만 바꾼다.
+    private static final class Lane {
+
+        private final int budget;
+        private final int queueLimit;
+        private final long maxWaitMillis;
+        private int running;
+        private int waiting;
+
+        private final LongAdder admitted = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private final LongAdder timedOut = new LongAdder();
+        private final Recorder waitTimes = new Recorder(3);
+        private final Recorder runTimes = new Recorder(3);
+        private final Histogram waitTotals = new Histogram(3);
+        private final Histogram runTotals = new Histogram(3);
+
+        private Lane(int budget, int queueLimit, long maxWaitMillis) {
+            this.budget = budget;
+            this.queueLimit = queueLimit;
+            this.maxWaitMillis = maxWaitMillis;
+        }
+    }
+}
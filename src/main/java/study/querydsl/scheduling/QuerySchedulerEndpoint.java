@@ -0,0 +1,24 @@
+package study.querydsl.scheduling;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * GET /actuator/queryscheduler - 워크로드별 예산 / 실행 중 / 대기 / 거절 수, 대기 및 실행 시간 p50 / p99 (ms)
+ */
+@Component
+@Endpoint(id = "queryscheduler")
+@RequiredArgsConstructor
+public class QuerySchedulerEndpoint {
+
+    private final QueryScheduler scheduler;
+
+    @ReadOperation
+    public List<WorkloadStats> workloads() {
+        return scheduler.stats();
+    }
+}
@@ -0,0 +1,12 @@
+package study.querydsl.scheduling;
+
+/**
+ * 쿼리 워크로드 종류 - 종류마다 커넥션 예산과 대기 큐가 따로다. (QueryScheduler)
+ */
+public enum WorkloadClass {
+
+    // 화면 검색 / 페이징 - 대기 중이면 BULK보다 먼저 커넥션을 받는다.
+    INTERACTIVE,
+    // 벌크 update / delete, 전체 조회, 통계 갱신 등 - 예산 안에서만, INTERACTIVE가 기다리지 않을 때만 실행된다.
+    BULK
+}
@@ -0,0 +1,15 @@
+package study.querydsl.scheduling;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * 워크로드 대기 큐가 가득 찼거나, 대기 시간(데드라인) 안에 커넥션 예산을 받지 못한 경우
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class WorkloadRejectedException extends RuntimeException {
+
+    public WorkloadRejectedException(WorkloadClass workload, String reason) {
+        super(workload.name().toLowerCase() + " query rejected: " + reason);
+    }
+}
@@ -0,0 +1,39 @@
+package study.querydsl.scheduling;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 워크로드 하나의 지표 스냅샷 - 대기 / 실행 시간은 ms, 기동 이후 누적
+ */
+@Getter
+@ToString
+public class WorkloadStats {
+
+    private final String workload;
+    private final int budget;
+    private final int running;
+    private final int waiting;
+    private final long admitted;
+    private final long rejected;
+    private final long timedOut;
+    private final double waitP50;
+    private final double waitP99;
+    private final double runP50;
+    private final double runP99;
+
+    public WorkloadStats(String workload, int budget, int running, int waiting, long admitted, long rejected,
+                         long timedOut, double waitP50, double waitP99, double runP50, double runP99) {
+        this.workload = workload;
+        this.budget = budget;
+        this.running = running;
+        this.waiting = waiting;
+        this.admitted = admitted;
+        this.rejected = rejected;
+        this.timedOut = timedOut;
+        this.waitP50 = waitP50;
+        this.waitP99 = waitP99;
+        this.runP50 = runP50;
+        this.runP99 = runP99;
+    }
+}
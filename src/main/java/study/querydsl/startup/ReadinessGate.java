@@ -0,0 +1,58 @@
+package study.querydsl.startup;
+
+import org.springframework.boot.availability.ApplicationAvailabilityBean;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.AvailabilityState;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.ApplicationEventPublisherAware;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 백그라운드 작업(데이터 시딩 등)이 끝날 때까지 readiness를 REFUSING_TRAFFIC으로 붙잡아 두는 ApplicationAvailability
+ * 기본 ApplicationAvailabilityBean을 대체하므로 /actuator/health/readiness 도 이 상태를 따른다.
+ *
+ * hold("seed") ... release("seed") 처럼 작업 이름으로 잡고 풀고,
+ * 잡힌 작업이 모두 풀리면 ACCEPTING_TRAFFIC 이벤트를 발행한다.
+ */
+@Component
+public class ReadinessGate extends ApplicationAvailabilityBean implements ApplicationEventPublisherAware {
+
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+    private ApplicationEventPublisher publisher;
+
+    @Override
+    public void setApplicationEventPublisher(ApplicationEventPublisher publisher) {
+        this.publisher = publisher;
+    }
+
+    public void hold(String task) {
+        pending.add(task);
+    }
+
+    public void release(String task) {
+        if (pending.remove(task) && pending.isEmpty()) {
+            AvailabilityChangeEvent.publish(publisher, this, ReadinessState.ACCEPTING_TRAFFIC);
+        }
+    }
+
+    // 다른 작업이 끝난 뒤에 시작해야 하는 작업용 (ex. 시딩 후 워밍업)
+    public boolean isPendingOtherThan(String task) {
+        return pending.stream().anyMatch(other -> !other.equals(task));
+    }
+
+    public boolean isReady() {
+        return getReadinessState() == ReadinessState.ACCEPTING_TRAFFIC;
+    }
+
+    @Override
+    public <S extends AvailabilityState> S getState(Class<S> stateType, S defaultState) {
+        if (stateType == ReadinessState.class && !pending.isEmpty()) {
+            return stateType.cast(ReadinessState.REFUSING_TRAFFIC);
+        }
+        return super.getState(stateType, defaultState);
+    }
+}
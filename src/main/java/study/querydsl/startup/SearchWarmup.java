@@ -0,0 +1,244 @@
+package study.querydsl.startup;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberRepository;
+import study.querydsl.repository.TeamNameCache;
+import study.querydsl.repository.timing.QueryTimings;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 트래픽을 받기 전 검색 경로 워밍업 (querydsl.warmup.enabled=true)
+ *
+ * 배포 직후에는 JIT가 아직 컴파일하지 않았고, Hibernate 쿼리 플랜 캐시가 비어 있고,
+ * DB 세션의 prepared statement도 준비되지 않아 첫 몇 분의 /v1 ~ /v3 응답이 느리다.
+ * readiness를 붙잡아 둔 채 실제 DB에 v1(search) / v2(searchPageSimple) / v3(searchPageComplex)를
+ * 조건 필드 조합(shape) 16가지 x 앞쪽 페이지 / deferred join 페이지로 한 라운드씩 반복 실행한다.
+ *
+ * 라운드 시간의 최근 window개가 tolerance 안에서 흔들리면 안정화된 것으로 보고 로그로 알린다.
+ * stop-when-stable이면 거기서 끝내고, 아니면 iterations 라운드를 모두 돈다. (max-duration을 넘기면 중단)
+ * 워밍업 쿼리는 QueryTimings 히스토그램에서 지운다.
+ *
+ * 시딩(InitMember)이 readiness를 잡고 있으면 끝날 때까지 기다렸다가 시작한다.
+ * 한 스레드에서 실행하므로 prepared statement는 그 스레드가 잡은 커넥션의 세션에만 준비된다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "querydsl.warmup.enabled", havingValue = "true")
+public class SearchWarmup {
+
+    private static final String WARMUP = "warmup";
+    private static final int SHAPES = 16;
+    private static final int SAMPLE_SIZE = 32;
+    // MemberRepositoryImpl.DEFERRED_JOIN_MIN_OFFSET 이상인 페이지
+    private static final Pageable DEEP_PAGE = PageRequest.of(50, 20);
+
+    private final ReadinessGate readinessGate;
+    private final MemberJpaRepository memberJpaRepository;
+    private final MemberRepository memberRepository;
+    private final TeamNameCache teamNameCache;
+    private final QueryTimings timings;
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate transactionTemplate;
+
+    private final int iterations;
+    private final int window;
+    private final double tolerance;
+    private final boolean stopWhenStable;
+    private final long maxDurationMillis;
+    private final boolean async;
+
+    private volatile WarmupResult result;
+
+    public SearchWarmup(ReadinessGate readinessGate,
+                        MemberJpaRepository memberJpaRepository,
+                        MemberRepository memberRepository,
+                        TeamNameCache teamNameCache,
+                        QueryTimings timings,
+                        EntityManager em,
+                        PlatformTransactionManager transactionManager,
+                        @Value("${querydsl.warmup.iterations:200}") int iterations,
+                        @Value("${querydsl.warmup.window:5}") int window,
+                        @Value("${querydsl.warmup.tolerance:0.1}") double tolerance,
+                        @Value("${querydsl.warmup.stop-when-stable:true}") boolean stopWhenStable,
+                        @Value("${querydsl.warmup.max-duration:60000}") long maxDurationMillis,
+                        @Value("${querydsl.warmup.async:${querydsl.init.async:false}}") boolean async) {
+        this.readinessGate = readinessGate;
+        this.memberJpaRepository = memberJpaRepository;
+        this.memberRepository = memberRepository;
+        this.teamNameCache = teamNameCache;
+        this.timings = timings;
+        this.queryFactory = new JPAQueryFactory(em);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.iterations = iterations;
+        this.window = window;
+        this.tolerance = tolerance;
+        this.stopWhenStable = stopWhenStable;
+        this.maxDurationMillis = maxDurationMillis;
+        this.async = async;
+    }
+
+    @PostConstruct
+    public void hold() {
+        readinessGate.hold(WARMUP);
+    }
+
+    /**
+     * 시딩(ApplicationStartedEvent)보다 뒤인 ApplicationReadyEvent에서 시작한다.
+     * 기본은 기동 스레드에서 바로 실행하고, querydsl.warmup.async(없으면 querydsl.init.async)=true면 백그라운드에서 돈다.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        Runnable warmup = () -> {
+            try {
+                awaitOtherTasks();
+                result = run();
+                log.info("search warmup: {}", result);
+            } catch (RuntimeException e) {
+                log.error("search warmup failed", e);
+            } finally {
+                readinessGate.release(WARMUP);
+            }
+        };
+        if (!async) {
+            warmup.run();
+            return;
+        }
+        Thread thread = new Thread(warmup, "search-warmup");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public WarmupResult getResult() {
+        return result;
+    }
+
+    WarmupResult run() {
+        List<MemberSearchCondition> samples = samples();
+        long startedAt = System.nanoTime();
+        long deadline = startedAt + TimeUnit.MILLISECONDS.toNanos(maxDurationMillis);
+
+        List<Long> roundNanos = new ArrayList<>();
+        Deque<Long> recent = new ArrayDeque<>(window);
+        int stableAt = -1;
+        for (int round = 0; round < iterations && System.nanoTime() < deadline; round++) {
+            int offset = round;
+            long start = System.nanoTime();
+            transactionTemplate.executeWithoutResult(status -> runRound(samples, offset));
+            long elapsed = System.nanoTime() - start;
+            roundNanos.add(elapsed);
+
+            recent.addLast(elapsed);
+            if (recent.size() > window) {
+                recent.removeFirst();
+            }
+            if (stableAt < 0 && isStable(recent)) {
+                stableAt = round + 1;
+                log.info("search warmup: latency stabilized after {} rounds ({} us / round)",
+                        stableAt, TimeUnit.NANOSECONDS.toMicros(elapsed));
+                if (stopWhenStable) {
+                    break;
+                }
+            }
+        }
+        // 콜드 스타트 지연이 운영 지표에 섞이지 않도록
+        timings.reset();
+        return new WarmupResult(roundNanos, stableAt, System.nanoTime() - startedAt);
+    }
+
+    // shape마다 v1 / v2 / v3, 앞쪽 페이지와 deferred join 페이지
+    private void runRound(List<MemberSearchCondition> samples, int offset) {
+        for (int shape = 0; shape < SHAPES; shape++) {
+            MemberSearchCondition condition = withShape(samples.get((offset + shape) % samples.size()), shape);
+            Pageable firstPage = PageRequest.of(0, 20);
+            memberJpaRepository.search(condition);
+            memberRepository.searchPageSimple(condition, firstPage);
+            memberRepository.searchPageComplex(condition, firstPage);
+            memberRepository.searchPageSimple(condition, DEEP_PAGE);
+        }
+    }
+
+    private boolean isStable(Deque<Long> recent) {
+        if (recent.size() < window) {
+            return false;
+        }
+        long min = Collections.min(recent);
+        long max = Collections.max(recent);
+        return max - min <= min * tolerance;
+    }
+
+    // 실제 회원 값으로 조건을 채운다. (값은 파라미터로 바인딩되므로 shape가 같으면 같은 쿼리 플랜이다.)
+    private List<MemberSearchCondition> samples() {
+        List<Tuple> rows = transactionTemplate.execute(status -> queryFactory
+                .select(member.username, member.age, member.team.id)
+                .from(member)
+                .orderBy(member.id.asc())
+                .limit(SAMPLE_SIZE)
+                .fetch());
+
+        List<MemberSearchCondition> samples = new ArrayList<>();
+        for (Tuple row : rows) {
+            MemberSearchCondition sample = new MemberSearchCondition();
+            sample.setUsername(row.get(member.username));
+            sample.setTeamName(teamNameCache.nameOf(row.get(member.team.id)));
+            Integer age = row.get(member.age);
+            sample.setAgeGoe(age);
+            sample.setAgeLoe(age == null ? null : age + 10);
+            samples.add(sample);
+        }
+        if (samples.isEmpty()) {
+            MemberSearchCondition sample = new MemberSearchCondition();
+            sample.setUsername("warmup");
+            sample.setTeamName("warmup");
+            sample.setAgeGoe(0);
+            sample.setAgeLoe(10);
+            samples.add(sample);
+        }
+        return samples;
+    }
+
+    // MemberBatchSearcher.shape()와 같은 비트 - 1: username, 2: teamName, 4: ageGoe, 8: ageLoe
+    private static MemberSearchCondition withShape(MemberSearchCondition sample, int shape) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername((shape & 1) != 0 ? sample.getUsername() : null);
+        condition.setTeamName((shape & 2) != 0 ? sample.getTeamName() : null);
+        condition.setAgeGoe((shape & 4) != 0 ? sample.getAgeGoe() : null);
+        condition.setAgeLoe((shape & 8) != 0 ? sample.getAgeLoe() : null);
+        return condition;
+    }
+
+    private void awaitOtherTasks() {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxDurationMillis);
+        while (readinessGate.isPendingOtherThan(WARMUP) && System.nanoTime() < deadline) {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
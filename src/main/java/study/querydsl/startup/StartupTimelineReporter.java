@@ -0,0 +1,63 @@
+package study.querydsl.startup;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+/**
+ * 기동 완료 시 BufferingApplicationStartup(QuerydslApplication.main에서 설정)에 쌓인 단계를
+ * 오래 걸린 순으로 로그에 남긴다. (어떤 빈 / 단계에서 기동 시간이 쓰였는지)
+ */
+@Slf4j
+@Component
+public class StartupTimelineReporter {
+
+    private final int top;
+
+    public StartupTimelineReporter(@Value("${querydsl.startup.report-top:20}") int top) {
+        this.top = top;
+    }
+
+    @EventListener
+    public void report(ApplicationReadyEvent event) {
+        ApplicationStartup startup = event.getApplicationContext().getApplicationStartup();
+        if (!(startup instanceof BufferingApplicationStartup)) {
+            return;
+        }
+        StartupTimeline timeline = ((BufferingApplicationStartup) startup).getBufferedTimeline();
+        Duration total = Duration.between(timeline.getStartTime(), Instant.now());
+
+        List<StartupTimeline.TimelineEvent> slowest = timeline.getEvents().stream()
+                .sorted(Comparator.comparing(StartupTimeline.TimelineEvent::getDuration).reversed())
+                .limit(top)
+                .collect(Collectors.toList());
+
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("startup timeline: ready in %d ms (%d steps recorded)%n",
+                total.toMillis(), timeline.getEvents().size()));
+        for (StartupTimeline.TimelineEvent timelineEvent : slowest) {
+            report.append(String.format("  %6d ms  %s%n", timelineEvent.getDuration().toMillis(), describe(timelineEvent.getStartupStep())));
+        }
+        log.info(report.toString());
+    }
+
+    private String describe(StartupStep step) {
+        String tags = StreamSupport.stream(step.getTags().spliterator(), false)
+                .map(tag -> tag.getKey() + "=" + tag.getValue())
+                .collect(Collectors.joining(", "));
+        return tags.isEmpty() ? step.getName() : step.getName() + " [" + tags + "]";
+    }
+}
@@ -0,0 +1,43 @@
+package study.querydsl.startup;
+
+import lombok.Getter;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 워밍업 결과 - 라운드별 시간과 안정화된 라운드 (안정화되지 않았으면 -1)
+ */
+@Getter
+public class WarmupResult {
+
+    private final List<Long> roundNanos;
+    private final int stableAtRound;
+    private final long totalNanos;
+
+    public WarmupResult(List<Long> roundNanos, int stableAtRound, long totalNanos) {
+        this.roundNanos = List.copyOf(roundNanos);
+        this.stableAtRound = stableAtRound;
+        this.totalNanos = totalNanos;
+    }
+
+    public int getRounds() {
+        return roundNanos.size();
+    }
+
+    public boolean isStable() {
+        return stableAtRound > 0;
+    }
+
+    @Override
+    public String toString() {
+        if (roundNanos.isEmpty()) {
+            return "no rounds";
+        }
+        return String.format("%d rounds in %d ms, first round %d us, last round %d us, %s",
+                roundNanos.size(), TimeUnit.NANOSECONDS.toMillis(totalNanos),
+                TimeUnit.NANOSECONDS.toMicros(roundNanos.get(0)),
+                TimeUnit.NANOSECONDS.toMicros(roundNanos.get(roundNanos.size() - 1)),
+                isStable() ? "stable after " + stableAtRound + " rounds" : "not stabilized");
+    }
+}
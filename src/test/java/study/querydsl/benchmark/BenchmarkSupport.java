@@ -0,0 +1,38 @@
+package study.querydsl.benchmark;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import study.querydsl.QuerydslApplication;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 벤치마크용 컨텍스트
+ * 설정을 바꿔가며 비교해야 하므로 @SpringBootTest 대신 직접 띄우고,
+ * 공용 tcp DB를 건드리지 않도록 이름별 H2 메모리 DB를 쓴다.
+ * 커맨드라인 인자로 넘기므로 application.yml 보다 우선한다.
+ */
+public abstract class BenchmarkSupport {
+
+    public static ConfigurableApplicationContext start(String name, String... args) {
+        List<String> arguments = new ArrayList<>();
+        arguments.add("--spring.profiles.active=benchmark");
+        arguments.add("--spring.datasource.url=jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        arguments.add("--logging.level.org.hibernate.SQL=info");
+        arguments.add("--decorator.datasource.p6spy.enable-logging=false");
+        arguments.addAll(Arrays.asList(args));
+
+        return new SpringApplicationBuilder(QuerydslApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(arguments.toArray(new String[0]));
+    }
+
+    public static void report(String name, long operations, long elapsedNanos) {
+        double millis = elapsedNanos / 1_000_000.0;
+        System.out.printf("[benchmark] %-40s %10d ops %10.1f ms %12.1f ops/s%n",
+                name, operations, millis, operations * 1000.0 / millis);
+    }
+}
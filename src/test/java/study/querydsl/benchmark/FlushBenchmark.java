@@ -0,0 +1,70 @@
+package study.querydsl.benchmark;
+
+import org.hibernate.engine.spi.SelfDirtinessTracker;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+/**
+ * 영속성 컨텍스트가 클 때 flush 비용
+ * 회원 전체를 읽어 둔 상태에서 일부만 바꾸고 flush 한다.
+ * - 향상 없음 : 관리 중인 모든 엔티티를 스냅샷과 필드 단위로 비교
+ * - 향상(인라인 dirty tracking) : 변경된 엔티티 / 필드만 본다.
+ * 비교하려면 ./gradlew benchmark 와 ./gradlew benchmark -Phibernate.enhance=false 를 각각 실행한다.
+ */
+@Tag("benchmark")
+class FlushBenchmark {
+
+    static final int MEMBERS = 100_000;
+    static final int ROUNDS = 20;
+    static final int CHANGES_PER_ROUND = 500;
+
+    static ConfigurableApplicationContext context;
+
+    @BeforeAll
+    static void start() {
+        context = BenchmarkSupport.start("flush",
+                "--spring.profiles.active=benchmark,local",
+                "--querydsl.init.async=false",
+                "--querydsl.init.member-count=" + MEMBERS);
+    }
+
+    @AfterAll
+    static void stop() {
+        context.close();
+    }
+
+    @Test
+    public void flushLargePersistenceContext() {
+        EntityManager em = context.getBean(EntityManager.class);
+        TransactionTemplate tx = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        boolean enhanced = SelfDirtinessTracker.class.isAssignableFrom(Member.class);
+
+        tx.executeWithoutResult(status -> {
+            List<Member> members = em.createQuery("select m from Member m", Member.class).getResultList();
+
+            long flushNanos = 0;
+            for (int round = 0; round < ROUNDS; round++) {
+                for (int i = 0; i < CHANGES_PER_ROUND; i++) {
+                    Member member = members.get((round * CHANGES_PER_ROUND + i) % members.size());
+                    member.setAge(member.getAge() + 1);
+                }
+                long start = System.nanoTime();
+                em.flush();
+                flushNanos += System.nanoTime() - start;
+            }
+
+            BenchmarkSupport.report("flush " + members.size() + " managed (enhanced=" + enhanced + ")",
+                    ROUNDS, flushNanos);
+            status.setRollbackOnly();
+        });
+    }
+}
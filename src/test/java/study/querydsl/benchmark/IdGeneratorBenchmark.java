@@ -0,0 +1,91 @@
+package study.querydsl.benchmark;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 동시 writer 상황에서 id 할당 방식별 insert 처리량 비교
+ * - legacy : 공용 hibernate_sequence, insert 마다 시퀀스 호출 (기존 @GeneratedValue와 동일)
+ * - pooled / pooled-lo : 엔티티별 시퀀스, allocation_size 건마다 시퀀스 호출
+ */
+@Tag("benchmark")
+class IdGeneratorBenchmark {
+
+    static final int WRITERS = 8;
+    static final int MEMBERS_PER_WRITER = 5_000;
+    static final int BATCH = 100;
+
+    @Test
+    public void legacySharedSequence() throws Exception {
+        run("legacy shared hibernate_sequence",
+                "--spring.jpa.properties.querydsl.id.shared_sequence=true",
+                "--spring.jpa.properties.querydsl.id.allocation_size=1",
+                "--spring.jpa.properties.querydsl.id.optimizer=none");
+    }
+
+    @Test
+    public void pooled() throws Exception {
+        run("pooled allocation_size=50",
+                "--spring.jpa.properties.querydsl.id.optimizer=pooled");
+    }
+
+    @Test
+    public void pooledLo() throws Exception {
+        run("pooled-lo allocation_size=50",
+                "--spring.jpa.properties.querydsl.id.optimizer=pooled-lo");
+    }
+
+    @Test
+    public void pooledLoLargeAllocation() throws Exception {
+        run("pooled-lo allocation_size=500",
+                "--spring.jpa.properties.querydsl.id.optimizer=pooled-lo",
+                "--spring.jpa.properties.querydsl.id.allocation_size=500");
+    }
+
+    private void run(String name, String... args) throws Exception {
+        try (ConfigurableApplicationContext context = BenchmarkSupport.start("ids", args)) {
+            EntityManager em = context.getBean(EntityManager.class);
+            TransactionTemplate tx = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+
+            Team team = tx.execute(status -> {
+                Team t = new Team("benchmark");
+                em.persist(t);
+                return t;
+            });
+
+            ExecutorService executor = Executors.newFixedThreadPool(WRITERS);
+            long start = System.nanoTime();
+            List<Future<?>> futures = new ArrayList<>();
+            for (int w = 0; w < WRITERS; w++) {
+                int writer = w;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < MEMBERS_PER_WRITER; i += BATCH) {
+                        int from = i;
+                        tx.executeWithoutResult(status -> {
+                            for (int j = from; j < from + BATCH; j++) {
+                                em.persist(new Member("w" + writer + "-" + j, j % 100, em.getReference(Team.class, team.getId())));
+                            }
+                        });
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            BenchmarkSupport.report(name, (long) WRITERS * MEMBERS_PER_WRITER, System.nanoTime() - start);
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package study.querydsl.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import study.querydsl.dto.LeanPage;
+import study.querydsl.dto.LeanPageJsonComponent;
+import study.querydsl.dto.MemberTeamDto;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * /v3/members 응답 직렬화 비교 (DB 없이 직렬화만)
+ * - before : PageImpl + 리플렉션 기반 MemberTeamDto 직렬화
+ * - after  : LeanPage + LeanPageJsonComponent
+ * 처리량과 함께 호출 스레드의 할당량(bytes/op)과 응답 크기를 출력한다.
+ */
+@Tag("benchmark")
+class LeanPageBenchmark {
+
+    static final int WARMUP = 20_000;
+    static final int ITERATIONS = 100_000;
+
+    final Page<MemberTeamDto> page = page(20);
+
+    @Test
+    public void pageImpl() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        run("PageImpl<MemberTeamDto>", mapper, page);
+    }
+
+    @Test
+    public void leanPage() throws Exception {
+        ObjectMapper mapper = new ObjectMapper().registerModule(new SimpleModule()
+                .addSerializer(new LeanPageJsonComponent.LeanPageSerializer()));
+        run("LeanPage<MemberTeamDto>", mapper, LeanPage.of(page));
+    }
+
+    private static void run(String name, ObjectMapper mapper, Object value) throws Exception {
+        for (int i = 0; i < WARMUP; i++) {
+            mapper.writeValueAsBytes(value);
+        }
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        long bytes = 0;
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            bytes += mapper.writeValueAsBytes(value).length;
+        }
+        long elapsed = System.nanoTime() - start;
+
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        BenchmarkSupport.report(name, ITERATIONS, elapsed);
+        System.out.printf("[benchmark] %-40s %10d bytes/op allocated %8d bytes/response%n",
+                name, allocated / ITERATIONS, bytes / ITERATIONS);
+    }
+
+    private static Page<MemberTeamDto> page(int size) {
+        List<MemberTeamDto> content = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            content.add(new MemberTeamDto((long) i, "member" + i, i % 100, (long) (i % 2), i % 2 == 0 ? "teamA" : "teamB"));
+        }
+        return new PageImpl<>(content, PageRequest.of(0, size, Sort.by("username")), 100_000);
+    }
+}
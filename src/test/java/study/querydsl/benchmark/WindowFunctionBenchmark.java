@@ -0,0 +1,98 @@
+package study.querydsl.benchmark;
+
+import com.querydsl.jpa.JPAExpressions;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.QMember;
+import study.querydsl.repository.analytics.MemberAnalyticsRepository;
+
+import javax.persistence.EntityManager;
+import java.util.function.Supplier;
+
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 상관 서브쿼리(JPAExpressions) vs 윈도우 함수(MemberAnalyticsRepository)
+ */
+@Tag("benchmark")
+class WindowFunctionBenchmark {
+
+    static final int ITERATIONS = 20;
+    static ConfigurableApplicationContext context;
+    static JPAQueryFactory queryFactory;
+    static TransactionTemplate tx;
+    static MemberAnalyticsRepository analyticsRepository;
+
+    @BeforeAll
+    static void start() {
+        context = BenchmarkSupport.start("window",
+                "--spring.profiles.active=benchmark,local",
+                "--querydsl.init.async=false",
+                "--querydsl.init.member-count=20000");
+        queryFactory = new JPAQueryFactory(context.getBean(EntityManager.class));
+        tx = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        analyticsRepository = context.getBean(MemberAnalyticsRepository.class);
+    }
+
+    @AfterAll
+    static void stop() {
+        context.close();
+    }
+
+    @Test
+    public void oldestPerTeam() {
+        QMember memberSub = new QMember("memberSub");
+        measure("oldest per team: correlated max()", () -> queryFactory
+                .selectFrom(member)
+                .where(member.age.eq(
+                        JPAExpressions
+                                .select(memberSub.age.max())
+                                .from(memberSub)
+                                .where(memberSub.team.eq(member.team))))
+                .fetch());
+        measure("oldest per team: row_number()", analyticsRepository::findOldestPerTeam);
+    }
+
+    @Test
+    public void teamAverage() {
+        QMember memberSub = new QMember("memberSub");
+        measure("team average: select-clause avg()", () -> queryFactory
+                .select(member.username,
+                        JPAExpressions
+                                .select(memberSub.age.avg())
+                                .from(memberSub)
+                                .where(memberSub.team.eq(member.team)))
+                .from(member)
+                .fetch());
+        measure("team average: avg() over", analyticsRepository::findAgeWithTeamAverage);
+    }
+
+    @Test
+    public void rankWithinTeam() {
+        QMember memberSub = new QMember("memberSub");
+        measure("rank within team: correlated count()+1", () -> queryFactory
+                .select(member.username,
+                        JPAExpressions
+                                .select(memberSub.count().add(1))
+                                .from(memberSub)
+                                .where(memberSub.team.eq(member.team), memberSub.age.gt(member.age)))
+                .from(member)
+                .fetch());
+        measure("rank within team: rank() over", analyticsRepository::findRankWithinTeam);
+    }
+
+    private void measure(String name, Supplier<?> query) {
+        tx.execute(status -> query.get()); // warmup
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            tx.execute(status -> query.get());
+        }
+        BenchmarkSupport.report(name, ITERATIONS, System.nanoTime() - start);
+    }
+}
@@ -0,0 +1,103 @@
+package study.querydsl.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberJpaRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 2차 캐시는 커밋 후에 채워지므로 @Transactional 없이 트랜잭션을 나눠 실행하고 직접 정리한다.
+ */
+@SpringBootTest
+class SecondLevelCacheRegionsTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    EntityManagerFactory emf;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    SecondLevelCacheRegions regions;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    TransactionTemplate tx;
+    Long teamId;
+    Long memberId;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            Team team = new Team("cacheTeam");
+            em.persist(team);
+            Member member = new Member("cacheMember", 10, team);
+            em.persist(member);
+            em.flush();
+            teamId = team.getId();
+            memberId = member.getId();
+        });
+    }
+
+    @AfterEach
+    public void after() {
+        tx.executeWithoutResult(status -> {
+            em.remove(em.find(Member.class, memberId));
+            em.remove(em.find(Team.class, teamId));
+        });
+    }
+
+    @Test
+    public void findByIdHitsCacheAfterFirstLoad() {
+        emf.getCache().evictAll();
+        long hitsBefore = hits(SecondLevelCacheRegions.MEMBER);
+
+        tx.executeWithoutResult(status -> memberJpaRepository.findById(memberId));
+        tx.executeWithoutResult(status -> memberJpaRepository.findById(memberId));
+
+        assertThat(emf.getCache().contains(Member.class, memberId)).isTrue();
+        assertThat(hits(SecondLevelCacheRegions.MEMBER)).isGreaterThan(hitsBefore);
+    }
+
+    @Test
+    public void teamIsCachedThroughMemberGetTeam() {
+        tx.executeWithoutResult(status -> em.find(Member.class, memberId).getTeam().getName());
+
+        assertThat(emf.getCache().contains(Team.class, teamId)).isTrue();
+    }
+
+    @Test
+    public void bulkUpdateEvictsMemberRegion() {
+        tx.executeWithoutResult(status -> memberJpaRepository.findById(memberId));
+        assertThat(emf.getCache().contains(Member.class, memberId)).isTrue();
+
+        tx.executeWithoutResult(status -> memberJpaRepository.moveMembersToTeam(List.of(memberId), teamId));
+
+        assertThat(emf.getCache().contains(Member.class, memberId)).isFalse();
+    }
+
+    private long hits(String region) {
+        return regions.stats().stream()
+                .filter(stats -> stats.getRegion().equals(region))
+                .mapToLong(CacheRegionStats::getHits)
+                .findFirst()
+                .orElseThrow();
+    }
+}
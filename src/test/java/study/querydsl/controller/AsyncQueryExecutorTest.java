@@ -0,0 +1,96 @@
+package study.querydsl.controller;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import study.querydsl.repository.QueryDeadline;
+import study.querydsl.scheduling.QueryScheduler;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AsyncQueryExecutorTest {
+
+    QueryScheduler scheduler = new QueryScheduler(10, 10, 200, 1000, 3, 20, 60_000);
+    AsyncQueryExecutor executor;
+
+    @AfterEach
+    void shutdown() {
+        QueryDeadline.clear();
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void rejectsImmediatelyWhenQueueIsFull() throws Exception {
+        executor = new AsyncQueryExecutor(scheduler, 1, 1, 10_000);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+
+        executor.submit(() -> {
+            started.countDown();
+            await(release);
+            return "running";
+        });
+        started.await(5, TimeUnit.SECONDS);
+        executor.submit(() -> "queued");
+
+        assertThatThrownBy(() -> executor.submit(() -> "rejected")).isInstanceOf(QueryRejectedException.class);
+        assertThat(executor.getRejected()).isEqualTo(1);
+        release.countDown();
+    }
+
+    @Test
+    public void timesOutAndSkipsTaskThatWaitedTooLong() throws Exception {
+        executor = new AsyncQueryExecutor(scheduler, 1, 2, 100);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean queuedRan = new AtomicBoolean();
+
+        CompletableFuture<String> running = executor.submit(() -> {
+            await(release);
+            return "running";
+        });
+        CompletableFuture<String> queued = executor.submit(() -> {
+            queuedRan.set(true);
+            return "queued";
+        });
+
+        assertThatThrownBy(() -> queued.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(TimeoutException.class);
+        release.countDown();
+        assertThatThrownBy(() -> running.get(5, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class);
+
+        // 워커가 비어도 이미 타임아웃된 작업은 실행하지 않는다. (워커 하나라 after보다 먼저 꺼내진다.)
+        executor.submit(() -> "after").get(5, TimeUnit.SECONDS);
+        assertThat(queuedRan).isFalse();
+        assertThat(executor.getTimedOut()).isEqualTo(2);
+    }
+
+    @Test
+    public void propagatesRequestDeadlineToWorker() throws Exception {
+        executor = new AsyncQueryExecutor(scheduler, 1, 1, 10_000);
+        QueryDeadline.set(Duration.ofSeconds(5));
+        Long deadline = QueryDeadline.current();
+
+        Long seenByWorker = executor.submit(QueryDeadline::current).get(5, TimeUnit.SECONDS);
+
+        assertThat(seenByWorker).isEqualTo(deadline);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
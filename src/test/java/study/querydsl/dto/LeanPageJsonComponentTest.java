@@ -0,0 +1,61 @@
+package study.querydsl.dto;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.BeanSerializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LeanPageJsonComponentTest {
+
+    final ObjectMapper defaultMapper = new ObjectMapper();
+    final ObjectMapper leanMapper = new ObjectMapper().registerModule(new SimpleModule()
+            .addSerializer(new LeanPageJsonComponent.LeanPageSerializer()));
+
+    @Test
+    public void leanContentMatchesDefaultSerialization() throws Exception {
+        List<MemberTeamDto> dtos = List.of(
+                new MemberTeamDto(1L, "member1", 10, 2L, "teamA"),
+                new MemberTeamDto(3L, null, 20, null, null));
+        LeanPage<MemberTeamDto> page = LeanPage.of(new PageImpl<>(dtos, PageRequest.of(0, 2), 2));
+
+        String leanContent = leanMapper.readTree(leanMapper.writeValueAsString(page)).get("content").toString();
+        assertThat(leanContent).isEqualTo(defaultMapper.writeValueAsString(dtos));
+    }
+
+    // MemberTeamDto는 LeanPage 안에서만 직접 쓰고, 그 밖의 응답은 기본 직렬화 그대로다.
+    @Test
+    public void memberTeamDtoOutsideLeanPageUsesDefaultSerializer() throws Exception {
+        MemberTeamDto dto = new MemberTeamDto(1L, "member1", 10, 2L, "teamA");
+
+        assertThat(leanMapper.getSerializerProviderInstance().findValueSerializer(MemberTeamDto.class))
+                .isInstanceOf(BeanSerializer.class);
+        assertThat(leanMapper.writeValueAsString(dto)).isEqualTo(defaultMapper.writeValueAsString(dto));
+    }
+
+    @Test
+    public void leanPageHasOnlyEnvelopeFields() throws Exception {
+        List<MemberTeamDto> content = List.of(new MemberTeamDto(1L, "member1", 10, 2L, "teamA"));
+        LeanPage<MemberTeamDto> page = LeanPage.of(new PageImpl<>(content, PageRequest.of(0, 1), 3));
+
+        JsonNode json = leanMapper.readTree(leanMapper.writeValueAsString(page));
+
+        assertThat(json.fieldNames()).toIterable().containsExactly("content", "total", "page", "size", "nextToken");
+        assertThat(json.get("content").get(0).get("username").asText()).isEqualTo("member1");
+        assertThat(json.get("total").asLong()).isEqualTo(3);
+        assertThat(json.get("nextToken").asText()).isEqualTo("1");
+    }
+
+    @Test
+    public void lastPageHasNoNextToken() throws Exception {
+        LeanPage<MemberTeamDto> page = LeanPage.of(new PageImpl<>(List.of(), PageRequest.of(2, 10), 20));
+
+        assertThat(leanMapper.readTree(leanMapper.writeValueAsString(page)).get("nextToken").isNull()).isTrue();
+    }
+}
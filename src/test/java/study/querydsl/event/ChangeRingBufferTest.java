@@ -0,0 +1,44 @@
+package study.querydsl.event;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChangeRingBufferTest {
+
+    @Test
+    public void pollsInPublishOrder() {
+        ChangeRingBuffer buffer = new ChangeRingBuffer(8);
+        for (long id = 1; id <= 5; id++) {
+            buffer.publish(ChangeRecord.row(ChangedEntity.MEMBER, ChangeType.INSERT, id));
+        }
+
+        List<ChangeRecord> batch = new ArrayList<>();
+        long[] skipped = new long[1];
+        long cursor = buffer.poll(0, 3, batch, skipped);
+
+        assertThat(cursor).isEqualTo(3);
+        assertThat(batch).extracting("fromId").containsExactly(1L, 2L, 3L);
+        assertThat(skipped[0]).isZero();
+    }
+
+    @Test
+    public void laggingConsumerSkipsOverwrittenRecords() {
+        ChangeRingBuffer buffer = new ChangeRingBuffer(4);
+        for (long id = 0; id < 10; id++) {
+            buffer.publish(ChangeRecord.row(ChangedEntity.MEMBER, ChangeType.UPDATE, id));
+        }
+
+        List<ChangeRecord> batch = new ArrayList<>();
+        long[] skipped = new long[1];
+        long cursor = buffer.poll(0, 10, batch, skipped);
+
+        // 마지막 한 바퀴(4건)만 남아 있다.
+        assertThat(batch).extracting("fromId").containsExactly(6L, 7L, 8L, 9L);
+        assertThat(skipped[0]).isEqualTo(6);
+        assertThat(cursor).isEqualTo(10);
+    }
+}
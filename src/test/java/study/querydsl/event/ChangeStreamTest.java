@@ -0,0 +1,113 @@
+package study.querydsl.event;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberJpaRepository;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 변경 레코드는 커밋 후에 발행되므로 @Transactional 없이 실행하고 직접 정리한다.
+ */
+@SpringBootTest(properties = "querydsl.init.async=false")
+class ChangeStreamTest {
+
+    @Autowired
+    ChangeStream changeStream;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Test
+    public void publishesCommittedChanges() throws Exception {
+        Queue<ChangeRecord> received = new ConcurrentLinkedQueue<>();
+        ChangeSubscription subscription = changeStream.subscribe("test", 16, received::addAll);
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        Long[] ids = new Long[2];
+        try {
+            tx.executeWithoutResult(status -> {
+                Team team = new Team("streamTeam");
+                Member member = new Member("streamMember", 10, team);
+                em.persist(team);
+                em.persist(member);
+                em.flush();
+                ids[0] = team.getId();
+                ids[1] = member.getId();
+            });
+            tx.executeWithoutResult(status -> memberJpaRepository.moveMembersToTeam(List.of(ids[1]), ids[0]));
+            tx.executeWithoutResult(status -> {
+                em.remove(em.find(Member.class, ids[1]));
+                em.remove(em.find(Team.class, ids[0]));
+            });
+
+            awaitSize(received, 5);
+            assertThat(received)
+                    .filteredOn(record -> record.getEntity() == ChangedEntity.MEMBER && record.covers(ids[1]))
+                    .extracting("type")
+                    .containsExactly(ChangeType.INSERT, ChangeType.UPDATE, ChangeType.DELETE);
+            assertThat(received)
+                    .filteredOn(record -> record.getEntity() == ChangedEntity.TEAM && record.covers(ids[0]))
+                    .extracting("type")
+                    .containsExactly(ChangeType.INSERT, ChangeType.DELETE);
+        } finally {
+            changeStream.unsubscribe(subscription);
+        }
+    }
+
+    @Test
+    public void rolledBackChangesAreNotPublished() throws Exception {
+        Queue<ChangeRecord> received = new ConcurrentLinkedQueue<>();
+        ChangeSubscription subscription = changeStream.subscribe("rollback", 16, received::addAll);
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                em.persist(new Team("rolledBack"));
+                em.flush();
+                status.setRollbackOnly();
+            });
+
+            TimeUnit.MILLISECONDS.sleep(100);
+            assertThat(received).isEmpty();
+        } finally {
+            changeStream.unsubscribe(subscription);
+        }
+    }
+
+    @Test
+    public void receivesRecordsPublishedRightAfterSubscribe() throws Exception {
+        Queue<ChangeRecord> received = new ConcurrentLinkedQueue<>();
+        ChangeSubscription subscription = changeStream.subscribe("immediate", 16, received::addAll);
+        try {
+            // 구독 스레드가 아직 첫 poll을 하기 전에 발행해도 받아야 한다.
+            changeStream.publish(ChangeRecord.row(ChangedEntity.MEMBER, ChangeType.UPDATE, -1L));
+
+            awaitSize(received, 1);
+            assertThat(received).hasSize(1);
+        } finally {
+            changeStream.unsubscribe(subscription);
+        }
+    }
+
+    private static void awaitSize(Queue<?> queue, int size) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (queue.size() < size && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package study.querydsl.load;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 부하 설정 (시스템 프로퍼티 load.*, gradle에서는 -Pload.rate=500 처럼 넘긴다.)
+ *
+ * load.rate       : 초당 요청 수 (open-loop 도착률)
+ * load.duration   : 측정 시간(초)
+ * load.warmup     : 측정 전 워밍업 시간(초), 이 구간은 리포트에서 제외
+ * load.mix        : 엔드포인트 비율 ex) v1:2,v2:1,v3:1
+ * load.maxPage    : v2/v3 요청 시 page 파라미터 최대값(0 ~ maxPage-1 균등)
+ * load.pageSize   : v2/v3 size 파라미터
+ * load.maxInFlight: 동시에 날아가 있을 수 있는 최대 요청 수
+ * load.teamRatio  : teamName 조건을 붙일 확률
+ * load.ageRatio   : ageGoe/ageLoe 조건을 붙일 확률
+ * load.usernameRatio : username 조건을 붙일 확률
+ * load.baseUrl    : 지정하면 내장 앱 대신 해당 서버로 보낸다.
+ * load.reportDir  : 리포트 저장 위치
+ */
+@Getter
+@ToString
+public class LoadConfig {
+
+    private final int rate = intProperty("load.rate", 200);
+    private final int durationSeconds = intProperty("load.duration", 30);
+    private final int warmupSeconds = intProperty("load.warmup", 5);
+    private final Map<String, Integer> mix = parseMix(System.getProperty("load.mix", "v1:1,v2:1,v3:1"));
+    private final int maxPage = intProperty("load.maxPage", 5);
+    private final int pageSize = intProperty("load.pageSize", 20);
+    private final int maxInFlight = intProperty("load.maxInFlight", 64);
+    private final double teamRatio = doubleProperty("load.teamRatio", 0.6);
+    private final double ageRatio = doubleProperty("load.ageRatio", 0.5);
+    private final double usernameRatio = doubleProperty("load.usernameRatio", 0.1);
+    private final long seed = intProperty("load.seed", 42);
+    private final String baseUrl = System.getProperty("load.baseUrl");
+    private final String reportDir = System.getProperty("load.reportDir", "build/reports/load");
+
+    private static int intProperty(String key, int defaultValue) {
+        return Integer.parseInt(System.getProperty(key, String.valueOf(defaultValue)));
+    }
+
+    private static double doubleProperty(String key, double defaultValue) {
+        return Double.parseDouble(System.getProperty(key, String.valueOf(defaultValue)));
+    }
+
+    private static Map<String, Integer> parseMix(String mix) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String entry : mix.split(",")) {
+            String[] pair = entry.trim().split(":");
+            int weight = pair.length > 1 ? Integer.parseInt(pair[1]) : 1;
+            if (weight > 0) {
+                weights.put(pair[0], weight);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("load.mix has no endpoint: " + mix);
+        }
+        return weights;
+    }
+}
@@ -0,0 +1,191 @@
+package study.querydsl.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import study.querydsl.QuerydslApplication;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * /v1, /v2, /v3 members 부하 생성기 (./gradlew loadTest -Pload.rate=500 -Pload.mix=v1:2,v2:1,v3:1)
+ *
+ * open-loop : 요청은 응답과 상관없이 정해진 도착 시각(intended start)에 보내고,
+ * 지연 시간은 실제 전송 시각이 아닌 intended start 부터 잰다.
+ * 서버가 밀려서 전송이 늦어진 시간까지 지연에 포함되므로 coordinated omission이 생기지 않는다.
+ *
+ * 결과는 엔드포인트별 HdrHistogram 퍼센타일로 load.reportDir에 저장한다.
+ */
+public class MemberLoadDriver {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+    private static final String[] TEAMS = {"teamA", "teamB"};
+
+    private final LoadConfig config;
+    private final String baseUrl;
+    private final Random random;
+    private final HttpClient client;
+    private final Map<String, Histogram> histograms = new LinkedHashMap<>();
+    private final Map<String, AtomicLong> errors = new LinkedHashMap<>();
+    private final String[] endpointTable;
+
+    public MemberLoadDriver(LoadConfig config, String baseUrl, ExecutorService executor) {
+        this.config = config;
+        this.baseUrl = baseUrl;
+        this.random = new Random(config.getSeed());
+        this.client = HttpClient.newBuilder()
+                .executor(executor)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+
+        int totalWeight = config.getMix().values().stream().mapToInt(Integer::intValue).sum();
+        this.endpointTable = new String[totalWeight];
+        int index = 0;
+        for (Map.Entry<String, Integer> entry : config.getMix().entrySet()) {
+            histograms.put(entry.getKey(), new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3));
+            errors.put(entry.getKey(), new AtomicLong());
+            for (int i = 0; i < entry.getValue(); i++) {
+                endpointTable[index++] = entry.getKey();
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadConfig config = new LoadConfig();
+        ConfigurableApplicationContext context = null;
+        String baseUrl = config.getBaseUrl();
+        if (baseUrl == null) {
+            context = new SpringApplicationBuilder(QuerydslApplication.class).run(
+                    "--server.port=0",
+                    "--spring.profiles.active=local",
+                    "--spring.datasource.url=jdbc:h2:mem:load;DB_CLOSE_DELAY=-1",
+                    "--logging.level.org.hibernate.SQL=info",
+                    "--decorator.datasource.p6spy.enable-logging=false");
+            baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(4, config.getMaxInFlight() / 4));
+        try {
+            MemberLoadDriver driver = new MemberLoadDriver(config, baseUrl, executor);
+            driver.run(config.getWarmupSeconds());
+            driver.reset();
+            driver.run(config.getDurationSeconds());
+            driver.report();
+        } finally {
+            executor.shutdownNow();
+            if (context != null) {
+                context.close();
+            }
+        }
+    }
+
+    public void run(int seconds) throws InterruptedException {
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / config.getRate();
+        long totalRequests = (long) config.getRate() * seconds;
+        Semaphore inFlight = new Semaphore(config.getMaxInFlight());
+        long start = System.nanoTime();
+
+        for (long i = 0; i < totalRequests; i++) {
+            long intendedStart = start + i * intervalNanos;
+            long wait = intendedStart - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+
+            String endpoint = endpointTable[random.nextInt(endpointTable.length)];
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/" + endpoint + "/members?" + query(endpoint)))
+                    .timeout(Duration.ofSeconds(30))
+                    .GET()
+                    .build();
+
+            // 동시 요청 수가 꽉 차면 여기서 밀리지만, 밀린 시간도 intendedStart 기준으로 지연에 포함된다.
+            inFlight.acquire();
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intendedStart);
+                        histograms.get(endpoint).recordValue(Math.min(micros, HIGHEST_TRACKABLE_MICROS));
+                        if (error != null || response.statusCode() >= 400) {
+                            errors.get(endpoint).incrementAndGet();
+                        }
+                        inFlight.release();
+                    });
+        }
+        inFlight.acquire(config.getMaxInFlight());
+        inFlight.release(config.getMaxInFlight());
+    }
+
+    private String query(String endpoint) {
+        StringBuilder query = new StringBuilder();
+        if (random.nextDouble() < config.getUsernameRatio()) {
+            query.append("username=member").append(random.nextInt(100)).append('&');
+        }
+        if (random.nextDouble() < config.getTeamRatio()) {
+            query.append("teamName=").append(TEAMS[random.nextInt(TEAMS.length)]).append('&');
+        }
+        if (random.nextDouble() < config.getAgeRatio()) {
+            int ageGoe = random.nextInt(90);
+            query.append("ageGoe=").append(ageGoe).append('&')
+                    .append("ageLoe=").append(ageGoe + random.nextInt(20)).append('&');
+        }
+        if (!endpoint.equals("v1")) {
+            query.append("page=").append(random.nextInt(config.getMaxPage())).append('&')
+                    .append("size=").append(config.getPageSize()).append('&');
+        }
+        return query.toString();
+    }
+
+    private void reset() {
+        histograms.values().forEach(Histogram::reset);
+        errors.values().forEach(counter -> counter.set(0));
+    }
+
+    private void report() throws IOException {
+        Path dir = Paths.get(config.getReportDir());
+        Files.createDirectories(dir);
+        Path file = dir.resolve("load-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".txt");
+
+        try (PrintStream out = new PrintStream(Files.newOutputStream(file))) {
+            out.println("# " + config);
+            out.printf("%-6s %10s %8s %10s %10s %10s %10s %10s %10s%n",
+                    "endpoint", "count", "errors", "mean(ms)", "p50", "p90", "p99", "p99.9", "max");
+            histograms.forEach((endpoint, histogram) -> out.printf("%-6s %10d %8d %10.2f %10.2f %10.2f %10.2f %10.2f %10.2f%n",
+                    endpoint, histogram.getTotalCount(), errors.get(endpoint).get(),
+                    histogram.getMean() / 1000.0,
+                    histogram.getValueAtPercentile(50) / 1000.0,
+                    histogram.getValueAtPercentile(90) / 1000.0,
+                    histogram.getValueAtPercentile(99) / 1000.0,
+                    histogram.getValueAtPercentile(99.9) / 1000.0,
+                    histogram.getMaxValue() / 1000.0));
+
+            // 다른 리포트와 나란히 비교할 수 있도록 전체 분포도 남긴다. (단위 ms)
+            histograms.forEach((endpoint, histogram) -> {
+                out.println();
+                out.println("## " + endpoint);
+                histogram.outputPercentileDistribution(out, 1000.0);
+            });
+        }
+        System.out.println(new String(Files.readAllBytes(file)));
+        System.out.println("load report: " + file.toAbsolutePath());
+    }
+}
@@ -0,0 +1,14 @@
+package study.querydsl.queryplan;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 전체 조회처럼 스캔이 의도된 테스트 - 리포트에는 남기지만 실패시키지 않는다.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface AllowTableScan {
+}
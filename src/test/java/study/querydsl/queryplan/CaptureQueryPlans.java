@@ -0,0 +1,23 @@
+package study.querydsl.queryplan;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 테스트마다 실행된 SQL을 모아 H2 EXPLAIN으로 member / team 풀 스캔을 찾고, 쿼리 수를 스냅샷과 비교한다.
+ * 결과는 build/query-plans/{테스트 클래스}.txt 에 남는다.
+ * ex) @CaptureQueryPlans(failOnTableScan = true)
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@ExtendWith(QueryPlanExtension.class)
+public @interface CaptureQueryPlans {
+
+    // true면 인덱스 없이 member / team을 스캔한 테스트를 실패시킨다. (@AllowTableScan 메소드 제외)
+    // -Pqueryplan.failOnTableScan=true 로 전체에 켤 수 있다.
+    boolean failOnTableScan() default false;
+}
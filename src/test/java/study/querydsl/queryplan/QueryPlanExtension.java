@@ -0,0 +1,206 @@
+package study.querydsl.queryplan;
+
+import org.junit.jupiter.api.extension.AfterAllCallback;
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * @CaptureQueryPlans 확장
+ *
+ * 1. 테스트 메소드마다 SqlCapture로 실행된 SQL을 모은다. (@BeforeEach의 SQL 포함)
+ * 2. select / update / delete는 별도 커넥션에서 H2 EXPLAIN을 실행해 member / team의 tableScan을 찾는다.
+ *    (값이 채워진 SQL이므로 실제 조건으로 플랜을 본다.)
+ * 3. 쿼리 수를 스냅샷(queryplan.snapshotDir/{클래스}.properties)과 비교해 늘었으면 실패시킨다.
+ *    스냅샷에 없는 테스트는 기록만 한다. -Pqueryplan.updateSnapshots=true 로 현재 값을 스냅샷으로 쓴다.
+ *    시퀀스 호출(call next value for ...)은 앞선 테스트가 할당받은 id 개수에 따라 생기거나 안 생기므로 세지 않는다.
+ * 4. 클래스가 끝나면 테스트별 쿼리 수와 스캔한 SQL / 플랜을 build/query-plans/{클래스}.txt 에 쓴다.
+ *
+ * 요청 스레드에서 실행되는 SQL만 모으므로 워커 풀에서 실행되는 쿼리(배치 검색, 벌크)는 세지 않는다.
+ */
+public class QueryPlanExtension implements BeforeEachCallback, AfterEachCallback, AfterAllCallback {
+
+    static final String SNAPSHOT_DIR = System.getProperty("queryplan.snapshotDir", "src/test/java/resources/query-counts");
+    static final Path REPORT_DIR = Paths.get(System.getProperty("queryplan.reportDir", "build/query-plans"));
+
+    // H2 1.4 플랜의 풀 스캔 표시 ex) /* PUBLIC.MEMBER.tableScan */
+    private static final Pattern TABLE_SCAN = Pattern.compile("PUBLIC\\.(MEMBER|TEAM)\\.tableScan", Pattern.CASE_INSENSITIVE);
+    private static final Pattern SEQUENCE_CALL = Pattern.compile("^(call|select)\\s+next\\s+value\\s+for\\s", Pattern.CASE_INSENSITIVE);
+    private static final Pattern LEADING_COMMENT = Pattern.compile("^\\s*/\\*.*?\\*/", Pattern.DOTALL);
+
+    private static final ExtensionContext.Namespace NAMESPACE = ExtensionContext.Namespace.create(QueryPlanExtension.class);
+
+    @Override
+    public void beforeEach(ExtensionContext context) {
+        SqlCapture.start();
+    }
+
+    @Override
+    public void afterEach(ExtensionContext context) throws Exception {
+        List<String> statements = SqlCapture.stop();
+        statements.removeIf(sql -> SEQUENCE_CALL.matcher(stripLeadingComments(sql)).find());
+        String testName = context.getRequiredTestMethod().getName();
+
+        List<ScannedStatement> scans = explain(SpringExtension.getApplicationContext(context).getBean(DataSource.class),
+                statements);
+        records(context).put(testName, new TestRecord(statements.size(), scans));
+
+        List<String> failures = new ArrayList<>();
+        if (!scans.isEmpty() && failOnTableScan(context)
+                && !context.getRequiredTestMethod().isAnnotationPresent(AllowTableScan.class)) {
+            StringBuilder message = new StringBuilder(testName + " scans member / team without an index:");
+            for (ScannedStatement scan : scans) {
+                message.append("\n  ").append(scan.sql).append("\n    -> ").append(scan.plan);
+            }
+            failures.add(message.toString());
+        }
+
+        String baseline = snapshot(context).getProperty(testName);
+        if (baseline != null && statements.size() > Integer.parseInt(baseline)) {
+            failures.add(String.format("%s ran %d statements, snapshot allows %s:%n  %s",
+                    testName, statements.size(), baseline, String.join("\n  ", statements)));
+        }
+
+        if (!failures.isEmpty()) {
+            throw new AssertionError(String.join("\n", failures));
+        }
+    }
+
+    @Override
+    public void afterAll(ExtensionContext context) throws IOException {
+        String className = context.getRequiredTestClass().getSimpleName();
+        Map<String, TestRecord> records = new TreeMap<>(records(context));
+
+        Files.createDirectories(REPORT_DIR);
+        try (Writer writer = Files.newBufferedWriter(REPORT_DIR.resolve(className + ".txt"), StandardCharsets.UTF_8)) {
+            for (Map.Entry<String, TestRecord> entry : records.entrySet()) {
+                TestRecord record = entry.getValue();
+                writer.write(String.format("%s: %d statements, %d table scans%n",
+                        entry.getKey(), record.statementCount, record.scans.size()));
+                for (ScannedStatement scan : record.scans) {
+                    writer.write("  " + scan.sql + System.lineSeparator());
+                    writer.write("    -> " + scan.plan + System.lineSeparator());
+                }
+            }
+        }
+
+        if (Boolean.getBoolean("queryplan.updateSnapshots")) {
+            // Properties.store()는 순서를 보장하지 않으므로 직접 정렬해서 쓴다.
+            Path snapshot = Paths.get(SNAPSHOT_DIR, className + ".properties");
+            Files.createDirectories(snapshot.getParent());
+            try (Writer writer = Files.newBufferedWriter(snapshot, StandardCharsets.UTF_8)) {
+                writer.write("# test method = max statements (QueryPlanExtension)" + System.lineSeparator());
+                for (Map.Entry<String, TestRecord> entry : records.entrySet()) {
+                    writer.write(entry.getKey() + "=" + entry.getValue().statementCount + System.lineSeparator());
+                }
+            }
+        }
+    }
+
+    private static List<ScannedStatement> explain(DataSource dataSource, List<String> statements) throws SQLException {
+        List<ScannedStatement> scans = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            for (String sql : statements) {
+                String body = stripLeadingComments(sql);
+                String keyword = body.split("\\s+", 2)[0].toLowerCase(Locale.ROOT);
+                if (!keyword.equals("select") && !keyword.equals("update") && !keyword.equals("delete")) {
+                    continue;
+                }
+                String plan;
+                try (ResultSet rs = statement.executeQuery("explain " + body)) {
+                    plan = rs.next() ? rs.getString(1).replaceAll("\\s+", " ") : "";
+                } catch (SQLException e) {
+                    // 이미 지워진 임시 테이블 등 - 플랜을 볼 수 없는 문장은 건너뛴다.
+                    continue;
+                }
+                if (TABLE_SCAN.matcher(plan).find()) {
+                    scans.add(new ScannedStatement(body, plan));
+                }
+            }
+        }
+        return scans;
+    }
+
+    private static String stripLeadingComments(String sql) {
+        String body = sql;
+        String stripped;
+        while (!(stripped = LEADING_COMMENT.matcher(body).replaceFirst("")).equals(body)) {
+            body = stripped;
+        }
+        return body.trim();
+    }
+
+    private static boolean failOnTableScan(ExtensionContext context) {
+        CaptureQueryPlans settings = context.getRequiredTestClass().getAnnotation(CaptureQueryPlans.class);
+        return Boolean.getBoolean("queryplan.failOnTableScan") || (settings != null && settings.failOnTableScan());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, TestRecord> records(ExtensionContext context) {
+        return context.getRoot().getStore(NAMESPACE).getOrComputeIfAbsent(
+                context.getRequiredTestClass().getName() + ".records", key -> new LinkedHashMap<String, TestRecord>(),
+                Map.class);
+    }
+
+    private static Properties snapshot(ExtensionContext context) {
+        String className = context.getRequiredTestClass().getSimpleName();
+        return context.getRoot().getStore(NAMESPACE).getOrComputeIfAbsent(
+                context.getRequiredTestClass().getName() + ".snapshot", key -> {
+                    Properties properties = new Properties();
+                    Path path = Paths.get(SNAPSHOT_DIR, className + ".properties");
+                    if (Files.exists(path)) {
+                        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                            properties.load(reader);
+                        } catch (IOException e) {
+                            throw new IllegalStateException("cannot read " + path, e);
+                        }
+                    }
+                    return properties;
+                }, Properties.class);
+    }
+
+    private static final class TestRecord {
+
+        private final int statementCount;
+        private final List<ScannedStatement> scans;
+
+        private TestRecord(int statementCount, List<ScannedStatement> scans) {
+            this.statementCount = statementCount;
+            this.scans = scans;
+        }
+    }
+
+    private static final class ScannedStatement {
+
+        private final String sql;
+        private final String plan;
+
+        private ScannedStatement(String sql, String plan) {
+            this.sql = sql;
+            this.plan = plan;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package study.querydsl.queryplan;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 테스트 스레드에서 실행된 SQL을 값이 채워진 형태로 모은다. (p6spy 리스너)
+ * start() ~ stop() 사이에만 모으므로 다른 테스트나 백그라운드 스레드(통계 갱신, write-behind 등)에는 영향이 없다.
+ * 테스트 클래스패스에 있으면 모든 테스트 컨텍스트에 빈으로 등록되고, p6spy 스타터가 DataSource에 붙인다.
+ */
+@Component
+public class SqlCapture extends SimpleJdbcEventListener {
+
+    private static final ThreadLocal<List<String>> CAPTURED = new ThreadLocal<>();
+
+    static void start() {
+        CAPTURED.set(new ArrayList<>());
+    }
+
+    static List<String> stop() {
+        List<String> captured = CAPTURED.get();
+        CAPTURED.remove();
+        return captured == null ? new ArrayList<>() : captured;
+    }
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        List<String> captured = CAPTURED.get();
+        if (captured != null) {
+            captured.add(statementInformation.getSqlWithValues());
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+import study.querydsl.benchmark.BenchmarkSupport;
+import study.querydsl.dto.MemberSearchCondition;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * searchPageComplex 카운트 쿼리 비교 - 같은 조건(ageGoe)으로 카운트 쿼리만 잰다.
+ * - before : select(member) + left join team + fetchCount()
+ * - after  : select(member.id.count()), teamName 조건이 없으면 조인 없음 (MemberRepositoryImpl.countQuery)
+ * countQuery()가 package-private이라 benchmark 패키지가 아니라 여기 둔다.
+ */
+@Tag("benchmark")
+class CountQueryBenchmark {
+
+    static final int ITERATIONS = 200;
+    static ConfigurableApplicationContext context;
+
+    @BeforeAll
+    static void start() {
+        context = BenchmarkSupport.start("count",
+                "--spring.profiles.active=benchmark,local",
+                "--querydsl.init.async=false",
+                "--querydsl.init.member-count=200000");
+    }
+
+    @AfterAll
+    static void stop() {
+        context.close();
+    }
+
+    @Test
+    public void joinedEntityCount() {
+        EntityManager em = context.getBean(EntityManagerFactory.class).createEntityManager();
+        JPAQueryFactory queryFactory = new JPAQueryFactory(em);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            queryFactory
+                    .select(member)
+                    .from(member)
+                    .leftJoin(member.team, team)
+                    .where(member.age.goe(i % 100))
+                    .fetchCount();
+        }
+        BenchmarkSupport.report("count(member) with left join", ITERATIONS, System.nanoTime() - start);
+        em.close();
+    }
+
+    @Test
+    public void prunedIdCount() {
+        MemberRepositoryImpl repositoryImpl = context.getBean(MemberRepositoryImpl.class);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            MemberSearchCondition condition = new MemberSearchCondition();
+            condition.setAgeGoe(i % 100);
+            repositoryImpl.countQuery(condition).fetchOne();
+        }
+        BenchmarkSupport.report("count(member.id) without join", ITERATIONS, System.nanoTime() - start);
+    }
+}
@@ -0,0 +1,71 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import study.querydsl.benchmark.BenchmarkSupport;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+
+import java.util.List;
+import java.util.function.BiFunction;
+
+/**
+ * 깊은 offset 페이지 content 비교 (/v2/members, offset ~ 100000) - 같은 조건 / 정렬 / offset, count 쿼리 제외
+ * - before : 앞쪽 페이지와 같은 쿼리 한 번 (건너뛰는 행도 모든 컬럼을 읽는다.) MemberRepositoryImpl.singleQueryContent
+ * - after  : id만 페이징한 뒤 그 id로만 컬럼을 읽는다. MemberRepositoryImpl.deferredJoinContent
+ * 두 경로가 package-private이라 benchmark 패키지가 아니라 여기 둔다.
+ */
+@Tag("benchmark")
+class DeferredJoinBenchmark {
+
+    static final int WARMUP = 20;
+    static final int ITERATIONS = 100;
+    static final int FIRST_PAGE = 5000;
+    static ConfigurableApplicationContext context;
+
+    @BeforeAll
+    static void start() {
+        context = BenchmarkSupport.start("deferred",
+                "--spring.profiles.active=benchmark,local",
+                "--querydsl.init.async=false",
+                "--querydsl.init.member-count=200000");
+    }
+
+    @AfterAll
+    static void stop() {
+        context.close();
+    }
+
+    @Test
+    public void deepPageContent() {
+        MemberRepositoryImpl repositoryImpl = context.getBean(MemberRepositoryImpl.class);
+
+        // 같은 테스트에서 차례로 재서 나란히 출력한다.
+        run("single query offset ~ 100000 (before)", repositoryImpl::singleQueryContent);
+        run("deferred join offset ~ 100000 (after)", repositoryImpl::deferredJoinContent);
+    }
+
+    private static void run(String name,
+                            BiFunction<MemberSearchCondition, PageRequest, List<MemberTeamDto>> content) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(10);
+
+        for (int i = 0; i < WARMUP; i++) {
+            content.apply(condition, page(i));
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            content.apply(condition, page(i));
+        }
+        BenchmarkSupport.report(name, ITERATIONS, System.nanoTime() - start);
+    }
+
+    private static PageRequest page(int i) {
+        return PageRequest.of(FIRST_PAGE + i % 20, 20, Sort.by("age"));
+    }
+}
@@ -0,0 +1,70 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.EstimatedPage;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.withinPercentage;
+
+// exact-below=0 : 추정값이 작아도 count 쿼리로 바꾸지 않는다.
+@SpringBootTest(properties = {"querydsl.init.async=false", "querydsl.estimate.exact-below=0"})
+@Transactional
+class MemberCountEstimatorTest {
+
+    @Autowired
+    MemberCountEstimator countEstimator;
+
+    @Autowired
+    MemberRepositoryImpl repositoryImpl;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Test
+    public void estimateIsCloseToExactCount() {
+        countEstimator.refresh();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        condition.setAgeGoe(50);
+
+        long exact = repositoryImpl.countQuery(condition).fetchOne();
+        assertThat(exact).isPositive();
+        assertThat((double) countEstimator.estimate(condition)).isCloseTo(exact, withinPercentage(20));
+    }
+
+    @Test
+    public void unknownTeamEstimatesZero() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("noSuchTeam");
+
+        assertThat(countEstimator.estimate(condition)).isZero();
+    }
+
+    @Test
+    public void largeResultUsesEstimate() {
+        EstimatedPage<MemberTeamDto> page = memberRepository.searchPageEstimated(new MemberSearchCondition(),
+                PageRequest.of(0, 10));
+
+        assertThat(page.isTotalExact()).isFalse();
+        assertThat(page.getContent()).hasSize(10);
+        assertThat(page.hasNext()).isTrue();
+    }
+
+    @Test
+    public void lastPageIsExact() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("member7");
+
+        EstimatedPage<MemberTeamDto> page = memberRepository.searchPageEstimated(condition, PageRequest.of(0, 10));
+
+        assertThat(page.isTotalExact()).isTrue();
+        assertThat(page.getTotalElements()).isEqualTo(page.getContent().size());
+    }
+}
@@ -1,6 +1,7 @@
 package study.querydsl.repository;
 
 import org.assertj.core.api.Assertions;
+import org.hibernate.Hibernate;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -10,6 +11,7 @@ import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.Team;
+import study.querydsl.queryplan.CaptureQueryPlans;
 
 import javax.persistence.EntityManager;
 
@@ -21,6 +23,7 @@ import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest
 @Transactional
+@CaptureQueryPlans
 class MemberJpaRepositoryTest {
     @Autowired
     MemberJpaRepository memberJpaRepository;
@@ -75,4 +78,45 @@ class MemberJpaRepositoryTest {
         assertThat(result).extracting("username").containsExactly("member4");
     }
 
-}
\ No newline at end of file
+    @Test
+    public void changeTeamWithoutLoadingMembers() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        Member member1 = new Member("member1", 10, teamA);
+        em.persist(member1);
+        em.flush();
+        em.clear();
+
+        Member findMember = em.find(Member.class, member1.getId());
+        Team findTeamB = em.find(Team.class, teamB.getId());
+        findMember.changeTeam(findTeamB);
+        em.flush();
+
+        assertThat(Hibernate.isInitialized(findTeamB.getMembers())).isFalse();
+        assertThat(findMember.getTeam()).isEqualTo(findTeamB);
+    }
+
+    @Test
+    public void moveMembersToTeam() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        Member member1 = new Member("member1", 10, teamA);
+        Member member2 = new Member("member2", 20, teamA);
+        em.persist(member1);
+        em.persist(member2);
+
+        long count = memberJpaRepository.moveMembersToTeam(List.of(member1.getId(), member2.getId()), teamB.getId());
+
+        assertThat(count).isEqualTo(2);
+        // 영속성 컨텍스트를 비우지 않고 대상만 refresh 한다.
+        assertThat(em.contains(member1)).isTrue();
+        assertThat(em.contains(teamA)).isTrue();
+        assertThat(member1.getTeam().getId()).isEqualTo(teamB.getId());
+        assertThat(teamA.getMembers()).isEmpty();
+    }
+
+}
@@ -0,0 +1,83 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.queryplan.CaptureQueryPlans;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 조건이 있는 검색은 member / team을 풀 스캔하지 않아야 한다.
+ * MemberRepositoryImpl을 바꿔 인덱스를 못 타게 되면 QueryPlanExtension이 실패시킨다.
+ */
+@SpringBootTest(properties = "querydsl.init.async=false")
+@Transactional
+@CaptureQueryPlans(failOnTableScan = true)
+class MemberRepositoryQueryPlanTest {
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberRepositoryImpl repositoryImpl;
+
+    @Test
+    public void usernameSearchUsesIndex() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("member1");
+
+        assertThat(memberRepository.search(condition)).extracting("username").containsOnly("member1");
+    }
+
+    @Test
+    public void ageRangeSearchUsesIndex() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(10);
+        condition.setAgeLoe(12);
+
+        assertThat(memberRepository.search(condition)).extracting("age").containsOnly(10, 11, 12);
+    }
+
+    // teamName은 member.team_id in (...) 으로 바뀌어 FK 인덱스를 탄다.
+    @Test
+    public void teamNameSearchUsesForeignKeyIndex() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        condition.setAgeGoe(90);
+
+        assertThat(memberRepository.search(condition)).extracting("teamName").containsOnly("teamA");
+    }
+
+    @Test
+    public void deferredJoinUsesIndexes() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(50);
+
+        List<MemberTeamDto> page = repositoryImpl.deferredJoinContent(condition,
+                PageRequest.of(1, 10, Sort.by("age")));
+
+        assertThat(page).extracting("age").containsExactly(60, 61, 62, 63, 64, 65, 66, 67, 68, 69);
+    }
+
+    // teamId 정렬은 member.team_id (team_id, member_id) 인덱스로 처리되므로 top-N 범위 밖의 깊은 페이지도 된다.
+    @Test
+    public void deepPageSortedByTeamIdUsesIndex() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        Page<MemberTeamDto> page = memberRepository.searchPageComplex(condition,
+                PageRequest.of(100, 10, Sort.by("teamId")));
+
+        assertThat(page.getContent()).isEmpty();
+        assertThat(page.getTotalElements()).isEqualTo(50);
+    }
+}
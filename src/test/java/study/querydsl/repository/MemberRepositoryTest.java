@@ -6,19 +6,23 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.transaction.annotation.Transactional;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.Team;
+import study.querydsl.queryplan.CaptureQueryPlans;
 
 import javax.persistence.EntityManager;
 import java.util.List;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
 @SpringBootTest
 @Transactional
+@CaptureQueryPlans
 public class MemberRepositoryTest {
 
     @Autowired
@@ -27,6 +31,9 @@ public class MemberRepositoryTest {
     @Autowired
     MemberRepository memberRepository;
 
+    @Autowired
+    MemberRepositoryImpl repositoryImpl;
+
     @Test
     public void basicTest() {
         Member member = new Member("member1", 10);
@@ -66,4 +73,106 @@ public class MemberRepositoryTest {
         assertThat(result.getSize()).isEqualTo(3);
         assertThat(result.getContent()).extracting("username").containsExactly("member0", "member1", "member2");
     }
+
+    @Test
+    public void countQueryDropsUnusedTeamJoin() {
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(20);
+        String jpql = repositoryImpl.countQuery(condition).toString();
+
+        assertThat(jpql).startsWith("select count(member1.id)");
+        assertThat(jpql).doesNotContain("join");
+        assertThat(repositoryImpl.countQuery(condition).fetchOne()).isEqualTo(
+                memberRepository.searchPageComplex(condition, PageRequest.of(0, 3)).getTotalElements());
+    }
+
+    @Test
+    public void teamNameConditionUsesTeamIdWithoutJoin() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        String jpql = repositoryImpl.countQuery(condition).toString();
+
+        assertThat(jpql).contains("member1.team.id");
+        assertThat(jpql).doesNotContain("join");
+        assertThat(memberRepository.search(condition)).isNotEmpty()
+                .allSatisfy(dto -> assertThat(dto.getTeamName()).isEqualTo("teamA"));
+    }
+
+    @Test
+    public void unknownTeamNameMatchesNothing() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("noSuchTeam");
+
+        assertThat(memberRepository.search(condition)).isEmpty();
+        assertThat(repositoryImpl.countQuery(condition).fetchOne()).isZero();
+    }
+
+    @Test
+    public void teamNameCacheSeesNewTeam() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamZ");
+        assertThat(memberRepository.search(condition)).isEmpty();
+
+        Team teamZ = new Team("teamZ");
+        em.persist(teamZ);
+        em.persist(new Member("memberZ", 30, teamZ));
+        em.flush();
+
+        assertThat(memberRepository.search(condition))
+                .extracting("username", "teamName")
+                .containsExactly(Assertions.tuple("memberZ", "teamZ"));
+    }
+
+    @Test
+    public void searchWithFieldsSelectsOnlyRequestedColumns() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+
+        List<Map<String, Object>> result = memberRepository.search(condition, MemberFields.parse("username, teamName"));
+
+        assertThat(result).isNotEmpty().allSatisfy(row -> {
+            assertThat(row).containsOnlyKeys("username", "teamName");
+            assertThat(row.get("teamName")).isEqualTo("teamB");
+        });
+    }
+
+    @Test
+    public void searchPageWithFields() {
+        Page<Map<String, Object>> result = memberRepository.searchPage(new MemberSearchCondition(),
+                MemberFields.parse("memberId,age"), PageRequest.of(0, 3));
+
+        assertThat(result.getContent()).hasSize(3)
+                .allSatisfy(row -> assertThat(row).containsOnlyKeys("memberId", "age"));
+        assertThat(result.getTotalElements()).isEqualTo(memberRepository.count());
+    }
+
+    @Test
+    public void searchPageSimpleWithFields() {
+        Page<Map<String, Object>> result = memberRepository.searchPageSimple(new MemberSearchCondition(),
+                MemberFields.parse("username"), PageRequest.of(1, 3));
+
+        assertThat(result.getContent()).hasSize(3)
+                .allSatisfy(row -> assertThat(row).containsOnlyKeys("username"));
+        assertThat(result.getTotalElements()).isEqualTo(memberRepository.count());
+    }
+
+    @Test
+    public void unknownFieldIsRejected() {
+        Assertions.assertThatThrownBy(() -> MemberFields.parse("username,password"))
+                .isInstanceOf(UnsupportedFieldException.class);
+    }
+
+    @Test
+    public void deferredJoinMatchesSinglePageQuery() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(10);
+        PageRequest pageRequest = PageRequest.of(3, 7, Sort.by(Sort.Direction.DESC, "age"));
+
+        List<MemberTeamDto> deferred = repositoryImpl.deferredJoinContent(condition, pageRequest);
+
+        assertThat(deferred).hasSize(7);
+        assertThat(deferred).containsExactlyElementsOf(
+                memberRepository.searchPageComplex(condition, pageRequest).getContent());
+    }
 }
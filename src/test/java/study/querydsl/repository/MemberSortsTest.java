@@ -0,0 +1,47 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.OrderSpecifier;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+class MemberSortsTest {
+
+    @Test
+    public void indexedSortWithIdTieBreaker() {
+        OrderSpecifier<?>[] orders = MemberSorts.toOrderSpecifiers(PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "age")));
+
+        assertThat(orders).containsExactly(member.age.desc(), member.id.asc());
+    }
+
+    @Test
+    public void teamIdSortsByForeignKeyWithoutTopNLimit() {
+        assertThat(MemberSorts.toOrderSpecifiers(PageRequest.of(100, 20, Sort.by("teamId"))))
+                .containsExactly(member.team.id.asc(), member.id.asc());
+    }
+
+    @Test
+    public void unsortedOrdersById() {
+        assertThat(MemberSorts.toOrderSpecifiers(PageRequest.of(0, 10))).containsExactly(member.id.asc());
+    }
+
+    @Test
+    public void unknownPropertyIsRejected() {
+        assertThatThrownBy(() -> MemberSorts.toOrderSpecifiers(PageRequest.of(0, 10, Sort.by("team.members"))))
+                .isInstanceOf(UnsupportedSortException.class);
+    }
+
+    @Test
+    public void unindexedSortOnlyWithinTopN() {
+        assertThat(MemberSorts.toOrderSpecifiers(PageRequest.of(0, 20, Sort.by("teamName"))))
+                .containsExactly(team.name.asc(), member.id.asc());
+
+        assertThatThrownBy(() -> MemberSorts.toOrderSpecifiers(PageRequest.of(100, 20, Sort.by("teamName"))))
+                .isInstanceOf(UnsupportedSortException.class);
+    }
+}
@@ -0,0 +1,99 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Team 저장 직후 풀의 커넥션을 모두 쥔 요청들이 동시에 검색해도, 캐시를 다시 읽으려고
+ * 두 번째 커넥션을 기다리지 않아야 한다. (기다리면 connection-timeout까지 서로 막힌다.)
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.hikari.maximum-pool-size=" + TeamNameCachePoolTest.POOL_SIZE,
+        "spring.datasource.hikari.connection-timeout=3000"
+})
+class TeamNameCachePoolTest {
+
+    static final int POOL_SIZE = 2;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    TeamNameCache teamNameCache;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Test
+    public void concurrentSearchesAfterTeamSaveDoNotNeedSecondConnection() throws Exception {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        Long teamId = tx.execute(status -> {
+            Team team = new Team("poolTeam");
+            em.persist(team);
+            return team.getId();
+        });
+
+        ExecutorService requests = Executors.newFixedThreadPool(POOL_SIZE);
+        CyclicBarrier allHoldConnections = new CyclicBarrier(POOL_SIZE);
+        try {
+            List<Future<List<MemberTeamDto>>> results = new ArrayList<>();
+            for (int i = 0; i < POOL_SIZE; i++) {
+                results.add(requests.submit(() -> tx.execute(status -> {
+                    // 커넥션을 잡은 뒤 모두 모였을 때 캐시를 읽는다.
+                    em.createQuery("select count(m) from Member m").getSingleResult();
+                    await(allHoldConnections);
+
+                    MemberSearchCondition condition = new MemberSearchCondition();
+                    condition.setTeamName("poolTeam");
+                    return memberRepository.search(condition);
+                })));
+            }
+            for (Future<List<MemberTeamDto>> result : results) {
+                assertThat(result.get(10, TimeUnit.SECONDS)).isEmpty();
+            }
+
+            // 요청이 끝나면 refresher가 커밋된 새 팀을 읽는다.
+            long deadline = System.currentTimeMillis() + 5000;
+            while (teamNameCache.idsOf("poolTeam").isEmpty() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertThat(teamNameCache.idsOf("poolTeam")).containsExactly(teamId);
+        } finally {
+            requests.shutdownNow();
+            tx.executeWithoutResult(status -> em.remove(em.find(Team.class, teamId)));
+        }
+    }
+
+    private static void await(CyclicBarrier barrier) {
+        try {
+            barrier.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (BrokenBarrierException | TimeoutException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 커밋 전 팀이 공유 캐시에 들어가지 않는지 보려면 트랜잭션을 직접 나눠야 하므로 @Transactional 없이 실행한다.
+ * 다른 트랜잭션이 커밋한 변경은 refresher가 다시 읽은 뒤에 보이므로 awaitName()으로 기다린다.
+ */
+@SpringBootTest
+class TeamNameCacheTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    TeamNameCache teamNameCache;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    TransactionTemplate tx;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+    }
+
+    @Test
+    public void uncommittedTeamIsOnlyVisibleToItsOwnTransaction() {
+        tx.executeWithoutResult(status -> {
+            Team team = new Team("pendingTeam");
+            em.persist(team);
+            em.flush();
+
+            // 다른 스레드는 커밋된 팀만 읽어 공유 캐시를 채운다.
+            List<Long> fromOtherThread = CompletableFuture.supplyAsync(() -> teamNameCache.idsOf("pendingTeam")).join();
+            assertThat(fromOtherThread).isEmpty();
+
+            // 팀을 바꾼 트랜잭션은 자기 변경을 본다.
+            assertThat(teamNameCache.idsOf("pendingTeam")).containsExactly(team.getId());
+            status.setRollbackOnly();
+        });
+
+        assertThat(teamNameCache.idsOf("pendingTeam")).isEmpty();
+    }
+
+    @Test
+    public void teamsChangedAfterBulkUpdate() throws InterruptedException {
+        Long teamId = tx.execute(status -> {
+            Team team = new Team("bulkTeam");
+            em.persist(team);
+            return team.getId();
+        });
+        awaitName(teamId, "bulkTeam");
+
+        try {
+            tx.executeWithoutResult(status -> {
+                // 벌크 update는 엔티티 리스너를 타지 않는다.
+                em.createQuery("update Team t set t.name = :name where t.id = :id")
+                        .setParameter("name", "bulkTeamRenamed")
+                        .setParameter("id", teamId)
+                        .executeUpdate();
+                teamNameCache.teamsChanged();
+                assertThat(teamNameCache.nameOf(teamId)).isEqualTo("bulkTeamRenamed");
+            });
+            awaitName(teamId, "bulkTeamRenamed");
+        } finally {
+            tx.executeWithoutResult(status -> em.remove(em.find(Team.class, teamId)));
+        }
+    }
+
+    private void awaitName(Long teamId, String expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!expected.equals(teamNameCache.nameOf(teamId)) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(teamNameCache.nameOf(teamId)).isEqualTo(expected);
+    }
+}
@@ -0,0 +1,73 @@
+package study.querydsl.repository.analytics;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberRankDto;
+import study.querydsl.dto.MemberTeamAgeDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class MemberAnalyticsRepositoryTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberAnalyticsRepository analyticsRepository;
+
+    Team teamA;
+    Team teamB;
+
+    @BeforeEach
+    public void before() {
+        teamA = new Team("analyticsA");
+        teamB = new Team("analyticsB");
+        em.persist(teamA);
+        em.persist(teamB);
+        em.persist(new Member("a1", 10, teamA));
+        em.persist(new Member("a2", 20, teamA));
+        em.persist(new Member("a3", 20, teamA));
+        em.persist(new Member("b1", 30, teamB));
+        em.persist(new Member("b2", 40, teamB));
+        // querydsl-sql은 JDBC로 바로 읽으므로 먼저 flush
+        em.flush();
+    }
+
+    @Test
+    public void oldestPerTeam() {
+        List<MemberRankDto> result = analyticsRepository.findOldestPerTeam().stream()
+                .filter(dto -> dto.getTeamName().startsWith("analytics"))
+                .collect(Collectors.toList());
+
+        assertThat(result).extracting("username").containsExactly("a2", "b2");
+    }
+
+    @Test
+    public void rankWithinTeam() {
+        List<MemberRankDto> result = analyticsRepository.findRankWithinTeam().stream()
+                .filter(dto -> dto.getTeamId().equals(teamA.getId()))
+                .collect(Collectors.toList());
+
+        assertThat(result).extracting("rank").containsExactly(1L, 1L, 3L);
+    }
+
+    @Test
+    public void ageWithTeamAverage() {
+        List<MemberTeamAgeDto> result = analyticsRepository.findAgeWithTeamAverage().stream()
+                .filter(dto -> dto.getTeamId().equals(teamB.getId()))
+                .collect(Collectors.toList());
+
+        assertThat(result).extracting("teamAvgAge").containsOnly(35.0);
+    }
+}
@@ -0,0 +1,73 @@
+package study.querydsl.repository.batch;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 워커 스레드는 테스트 트랜잭션을 볼 수 없으므로 InitMember가 넣은 데이터로 확인한다.
+ */
+@SpringBootTest(properties = {"querydsl.init.async=false", "querydsl.batch.merge-limit=3"})
+class MemberBatchSearcherTest {
+
+    @Autowired
+    MemberBatchSearcher batchSearcher;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Test
+    public void batchMatchesIndividualSearches() {
+        List<MemberSearchCondition> conditions = new ArrayList<>();
+        // 같은 shape(teamName + ageGoe) 4개 -> 3개 + 1개로 묶인다. 나이 범위가 겹치는 조건 포함
+        conditions.add(condition(null, "teamA", 90, null));
+        conditions.add(condition(null, "teamB", 90, null));
+        conditions.add(condition(null, "teamA", 95, null));
+        conditions.add(condition(null, "noSuchTeam", 0, null));
+        // 다른 shape
+        conditions.add(condition("member7", null, null, null));
+        conditions.add(condition(null, null, 10, 12));
+        // 중복
+        conditions.add(condition(null, "teamA", 90, null));
+
+        Map<Integer, List<MemberTeamDto>> result = batchSearcher.search(conditions);
+
+        assertThat(result).hasSize(conditions.size());
+        for (int i = 0; i < conditions.size(); i++) {
+            assertThat(result.get(i)).as("condition %d", i)
+                    .containsExactlyInAnyOrderElementsOf(memberRepository.search(conditions.get(i)));
+        }
+        assertThat(result.get(0)).isNotEmpty();
+        assertThat(result.get(3)).isEmpty();
+    }
+
+    @Test
+    public void rejectsTooManyConditions() {
+        List<MemberSearchCondition> conditions = new ArrayList<>();
+        for (int i = 0; i <= 100; i++) {
+            conditions.add(condition("member" + i, null, null, null));
+        }
+
+        assertThatThrownBy(() -> batchSearcher.search(conditions))
+                .isInstanceOf(BatchSearchTooLargeException.class);
+    }
+
+    private static MemberSearchCondition condition(String username, String teamName, Integer ageGoe, Integer ageLoe) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername(username);
+        condition.setTeamName(teamName);
+        condition.setAgeGoe(ageGoe);
+        condition.setAgeLoe(ageLoe);
+        return condition;
+    }
+}
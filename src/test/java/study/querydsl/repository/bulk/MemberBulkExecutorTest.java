@@ -0,0 +1,71 @@
+package study.querydsl.repository.bulk;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.querydsl.entity.Member;
+import study.querydsl.repository.MemberRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 청크마다 별도 트랜잭션으로 커밋되므로 @Transactional 없이 실행하고 직접 정리한다.
+ */
+@SpringBootTest(properties = "querydsl.bulk.chunk-size=3")
+class MemberBulkExecutorTest {
+
+    @Autowired
+    MemberBulkExecutor bulkExecutor;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @BeforeEach
+    public void before() {
+        for (int i = 0; i < 10; i++) {
+            memberRepository.save(new Member("bulk" + i, i * 10));
+        }
+    }
+
+    @AfterEach
+    public void after() {
+        bulkExecutor.delete(member.username.startsWith("bulk"), bulkExecutor.newCheckpoint(), progress -> {});
+    }
+
+    @Test
+    public void chunkedUpdate() {
+        List<BulkProgress> reports = new ArrayList<>();
+
+        BulkProgress result = bulkExecutor.update(
+                member.username.startsWith("bulk").and(member.age.lt(50)),
+                clause -> clause.set(member.age, member.age.add(1)),
+                bulkExecutor.newCheckpoint(),
+                reports::add);
+
+        assertThat(result.getAffectedRows()).isEqualTo(5);
+        assertThat(result.isDone()).isTrue();
+        assertThat(reports).hasSize(result.getTotalChunks());
+        assertThat(memberRepository.findByUsername("bulk4").get(0).getAge()).isEqualTo(41);
+        assertThat(memberRepository.findByUsername("bulk5").get(0).getAge()).isEqualTo(50);
+    }
+
+    @Test
+    public void resumeSkipsCompletedChunks() {
+        BulkCheckpoint checkpoint = bulkExecutor.newCheckpoint();
+        bulkExecutor.update(member.username.startsWith("bulk"),
+                clause -> clause.set(member.age, member.age.add(1)), checkpoint, progress -> {});
+
+        // 같은 체크포인트로 다시 실행하면 이미 커밋된 청크는 건너뛴다.
+        BulkProgress resumed = bulkExecutor.update(member.username.startsWith("bulk"),
+                clause -> clause.set(member.age, member.age.add(1)), checkpoint, progress -> {});
+
+        assertThat(resumed.getTotalChunks()).isEqualTo(0);
+        assertThat(memberRepository.findByUsername("bulk0").get(0).getAge()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,74 @@
+package study.querydsl.repository.shard;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// 샤드 모드에서 회원 검색 엔드포인트가 기본 DB가 아니라 샤드를 조회하는지
+@SpringBootTest(properties = {
+        "querydsl.shard.enabled=true",
+        "querydsl.shard.count=2",
+        // ShardedMemberRepositoryTest와 다른 컨텍스트라 스키마를 다시 만들므로 DB를 나눈다.
+        "querydsl.shard.url-pattern=jdbc:h2:mem:member_endpoint_shard_%d;DB_CLOSE_DELAY=-1"
+})
+@AutoConfigureMockMvc
+class ShardedMemberEndpointTest {
+
+    @Autowired
+    ShardedMemberRepository shardedMemberRepository;
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @BeforeEach
+    public void before() {
+        if (!shardedMemberRepository.isEmpty()) {
+            return;
+        }
+        for (String name : List.of("shardTeamA", "shardTeamB", "shardTeamC")) {
+            Team team = shardedMemberRepository.saveTeam(new Team(name));
+            for (int i = 0; i < 4; i++) {
+                shardedMemberRepository.save(new Member(name + "-member" + i, i * 10, team));
+            }
+        }
+    }
+
+    @Test
+    public void v3SearchesAllShards() throws Exception {
+        mockMvc.perform(get("/v3/members").param("page", "1").param("size", "5").param("sort", "age,desc"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(12))
+                .andExpect(jsonPath("$.content", hasSize(5)))
+                .andExpect(jsonPath("$.content[0].age").value(20));
+    }
+
+    @Test
+    public void v1TeamNameRoutesToItsShard() throws Exception {
+        mockMvc.perform(get("/v1/members").param("teamName", "shardTeamB"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(4)))
+                .andExpect(jsonPath("$[*].teamName", everyItem(is("shardTeamB"))));
+    }
+
+    @Test
+    public void singleStoreSearchIsRejected() throws Exception {
+        mockMvc.perform(get("/v1/members").param("fields", "username"))
+                .andExpect(status().isNotImplemented());
+        mockMvc.perform(get("/v4/members"))
+                .andExpect(status().isNotImplemented());
+    }
+}
@@ -0,0 +1,90 @@
+package study.querydsl.repository.shard;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "querydsl.shard.enabled=true",
+        "querydsl.shard.count=3"
+})
+class ShardedMemberRepositoryTest {
+
+    @Autowired
+    ShardedMemberRepository shardedMemberRepository;
+
+    @BeforeEach
+    public void before() {
+        if (!shardedMemberRepository.search(new MemberSearchCondition()).isEmpty()) {
+            return;
+        }
+        for (String name : List.of("teamA", "teamB", "teamC", "teamD")) {
+            Team team = shardedMemberRepository.saveTeam(new Team(name));
+            for (int i = 0; i < 5; i++) {
+                shardedMemberRepository.save(new Member(name + "-member" + i, i * 10, team));
+            }
+        }
+    }
+
+    @Test
+    public void scatterGatherSearch() {
+        List<MemberTeamDto> result = shardedMemberRepository.search(new MemberSearchCondition());
+        assertThat(result).hasSize(20);
+    }
+
+    @Test
+    public void teamNameRoutesToSingleShard() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamC");
+        condition.setAgeGoe(20);
+
+        List<MemberTeamDto> result = shardedMemberRepository.search(condition);
+
+        assertThat(result).extracting("username")
+                .containsExactlyInAnyOrder("teamC-member2", "teamC-member3", "teamC-member4");
+    }
+
+    @Test
+    public void mergedPaging() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        Page<MemberTeamDto> first = shardedMemberRepository.searchPageComplex(condition, PageRequest.of(0, 7));
+        Page<MemberTeamDto> second = shardedMemberRepository.searchPageComplex(condition, PageRequest.of(1, 7));
+
+        assertThat(first.getTotalElements()).isEqualTo(20);
+        assertThat(first.getContent()).hasSize(7);
+        assertThat(second.getContent()).hasSize(7);
+        assertThat(first.getContent()).doesNotContainAnyElementsOf(second.getContent());
+    }
+
+    @Test
+    public void mergedPagingKeepsRequestedSort() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        Sort sort = Sort.by(Sort.Order.desc("age"), Sort.Order.asc("username"));
+
+        List<MemberTeamDto> merged = new ArrayList<>();
+        for (int page = 0; page < 3; page++) {
+            merged.addAll(shardedMemberRepository.searchPageComplex(condition, PageRequest.of(page, 7, sort)).getContent());
+        }
+
+        assertThat(merged).hasSize(20);
+        assertThat(merged).isSortedAccordingTo(Comparator
+                .comparing(MemberTeamDto::getAge, Comparator.reverseOrder())
+                .thenComparing(MemberTeamDto::getUsername));
+        assertThat(merged).extracting("teamName").doesNotContainNull();
+    }
+}
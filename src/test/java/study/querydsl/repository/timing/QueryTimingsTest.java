@@ -0,0 +1,89 @@
+package study.querydsl.repository.timing;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberRepository;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "querydsl.init.async=false")
+@AutoConfigureMockMvc
+@Transactional
+class QueryTimingsTest {
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    QueryTimings timings;
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @AfterEach
+    void clearTrace() {
+        QueryTrace.clear();
+    }
+
+    @Test
+    public void traceCollectsEveryStageOfEachQuery() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        QueryTrace trace = QueryTrace.start();
+        List<MemberTeamDto> result = memberRepository.searchPageSimple(condition, PageRequest.of(0, 10)).getContent();
+
+        assertThat(result).hasSize(10);
+        // content + count
+        assertThat(trace.getQueries()).isEqualTo(2);
+        assertThat(trace.getNanos(QueryStage.SERIALIZE)).isPositive();
+        assertThat(trace.getNanos(QueryStage.TRANSLATE)).isPositive();
+        assertThat(trace.getNanos(QueryStage.JDBC)).isPositive();
+        assertThat(trace.getNanos(QueryStage.MAP)).isPositive();
+    }
+
+    @Test
+    public void histogramsCountQueriesWithoutTrace() {
+        Map<String, Long> before = counts();
+
+        memberRepository.search(new MemberSearchCondition());
+
+        Map<String, Long> after = counts();
+        assertThat(after.get("serialize")).isEqualTo(before.get("serialize") + 1);
+        assertThat(after.get("jdbc")).isEqualTo(before.get("jdbc") + 1);
+        assertThat(after.get("map")).isEqualTo(before.get("map") + 1);
+    }
+
+    @Test
+    public void traceHeaderReturnsServerTiming() throws Exception {
+        mockMvc.perform(get("/v1/members").param("teamName", "teamB").header("X-Query-Trace", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Server-Timing", containsString("jdbc;dur=")))
+                .andExpect(header().string("Server-Timing", containsString("queries;desc=\"1\"")));
+
+        mockMvc.perform(get("/v1/members").param("teamName", "teamB"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Server-Timing"));
+    }
+
+    private Map<String, Long> counts() {
+        return timings.stats().stream()
+                .collect(Collectors.toMap(QueryStageStats::getStage, QueryStageStats::getCount));
+    }
+}
@@ -0,0 +1,88 @@
+package study.querydsl.repository.writebehind;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberRepository;
+
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+        "querydsl.write-behind.enabled=true",
+        "querydsl.write-behind.batch-size=50"
+})
+class MemberWriteBehindBufferTest {
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberWriteBehindBuffer writeBehindBuffer;
+
+    @Autowired
+    WriteBehindEndpoint writeBehindEndpoint;
+
+    @AfterEach
+    public void after() {
+        memberRepository.deleteAll(memberRepository.findAll().stream()
+                .filter(m -> m.getUsername().startsWith("behind"))
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    public void flushIsReadYourWritesBarrier() {
+        for (int i = 0; i < 120; i++) {
+            memberJpaRepository.save(new Member("behind" + i, i));
+        }
+
+        memberJpaRepository.flush();
+
+        assertThat(memberRepository.findByUsername("behind119")).hasSize(1);
+
+        WriteBehindStats stats = writeBehindBuffer.getStats();
+        assertThat(stats.getQueueDepth()).isEqualTo(0);
+        assertThat(stats.getWritten()).isGreaterThanOrEqualTo(120);
+        assertThat(stats.getMaxBatchSize()).isLessThanOrEqualTo(50);
+    }
+
+    @Test
+    public void flushSurfacesFailedBatch() {
+        // 저장되지 않은 Team을 참조하면 배치 insert가 실패한다.
+        memberJpaRepository.save(new Member("behindBroken", 10, new Team("unsaved")));
+
+        assertThatThrownBy(() -> memberJpaRepository.flush())
+                .isInstanceOf(MemberWriteBehindException.class)
+                .extracting("failedCount").isEqualTo(1L);
+        assertThat(writeBehindBuffer.getStats().getFailed()).isGreaterThanOrEqualTo(1);
+
+        // 실패는 한 번만 보고된다.
+        memberJpaRepository.save(new Member("behindAfter", 11));
+        memberJpaRepository.flush();
+        assertThat(memberRepository.findByUsername("behindAfter")).hasSize(1);
+    }
+
+    @Test
+    public void endpointReportsBatchSizesAndQueueDepth() {
+        for (int i = 0; i < 30; i++) {
+            memberJpaRepository.save(new Member("behindStats" + i, i));
+        }
+        memberJpaRepository.flush();
+
+        WriteBehindStats stats = writeBehindEndpoint.stats();
+        assertThat(stats.getQueueDepth()).isEqualTo(0);
+        assertThat(stats.getEnqueued()).isGreaterThanOrEqualTo(30);
+        assertThat(stats.getBatches()).isGreaterThanOrEqualTo(1);
+        assertThat(stats.getMaxBatchSize()).isBetween(1L, 50L);
+        assertThat(stats.getAverageBatchSize()).isGreaterThan(0);
+    }
+}
@@ -0,0 +1,128 @@
+package study.querydsl.scheduling;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class QuerySchedulerTest {
+
+    @Test
+    public void bulkCannotExceedItsBudget() {
+        QueryScheduler scheduler = new QueryScheduler(4, 4, 10, 1000, 1, 10, 50);
+
+        CompletableFuture<QueryScheduler.Permit> first = acquireAsync(scheduler, WorkloadClass.BULK);
+        first.join();
+
+        assertThatThrownBy(() -> scheduler.call(WorkloadClass.BULK, () -> "second"))
+                .isInstanceOf(WorkloadRejectedException.class);
+        assertThat(stats(scheduler).get("bulk").getTimedOut()).isEqualTo(1);
+        // BULK가 막혀도 INTERACTIVE는 바로 들어간다.
+        assertThat(scheduler.call(WorkloadClass.INTERACTIVE, () -> "search")).isEqualTo("search");
+        release(first);
+    }
+
+    @Test
+    public void waitingInteractiveGoesBeforeWaitingBulk() throws Exception {
+        // 풀 2개: INTERACTIVE 하나 + BULK 하나로 가득 찬 상태
+        QueryScheduler scheduler = new QueryScheduler(2, 2, 10, 5000, 1, 10, 5000);
+        CompletableFuture<QueryScheduler.Permit> interactive = acquireAsync(scheduler, WorkloadClass.INTERACTIVE);
+        CompletableFuture<QueryScheduler.Permit> bulk = acquireAsync(scheduler, WorkloadClass.BULK);
+        interactive.get(5, TimeUnit.SECONDS);
+        bulk.get(5, TimeUnit.SECONDS);
+
+        CompletableFuture<QueryScheduler.Permit> waitingBulk = acquireAsync(scheduler, WorkloadClass.BULK);
+        awaitWaiting(scheduler, "bulk", 1);
+        CompletableFuture<QueryScheduler.Permit> waitingInteractive = acquireAsync(scheduler, WorkloadClass.INTERACTIVE);
+        awaitWaiting(scheduler, "interactive", 1);
+
+        // BULK 한 자리가 비면 먼저 기다린 BULK가 아니라 INTERACTIVE가 들어간다.
+        release(bulk);
+        waitingInteractive.get(5, TimeUnit.SECONDS);
+        assertThat(waitingBulk).isNotDone();
+
+        release(interactive);
+        release(waitingInteractive);
+        waitingBulk.get(5, TimeUnit.SECONDS);
+        release(waitingBulk);
+    }
+
+    @Test
+    public void rejectsWhenQueueIsFull() {
+        QueryScheduler scheduler = new QueryScheduler(1, 1, 0, 1000, 1, 0, 1000);
+        CompletableFuture<QueryScheduler.Permit> holder = acquireAsync(scheduler, WorkloadClass.INTERACTIVE);
+        holder.join();
+
+        assertThatThrownBy(() -> scheduler.call(WorkloadClass.INTERACTIVE, () -> "queued"))
+                .isInstanceOf(WorkloadRejectedException.class);
+        assertThat(stats(scheduler).get("interactive").getRejected()).isEqualTo(1);
+        release(holder);
+    }
+
+    @Test
+    public void nestedCallDoesNotTakeSecondPermit() {
+        QueryScheduler scheduler = new QueryScheduler(1, 1, 0, 1000, 1, 0, 1000);
+
+        String result = scheduler.call(WorkloadClass.INTERACTIVE,
+                () -> scheduler.call(WorkloadClass.INTERACTIVE, () -> "nested"));
+
+        assertThat(result).isEqualTo("nested");
+        assertThat(stats(scheduler).get("interactive").getAdmitted()).isEqualTo(1);
+        assertThat(stats(scheduler).get("interactive").getRunning()).isZero();
+    }
+
+    @Test
+    public void nestedCallOfOtherWorkloadTakesItsOwnPermit() {
+        QueryScheduler scheduler = new QueryScheduler(2, 2, 10, 1000, 1, 0, 1000);
+
+        int bulkRunningInside = scheduler.call(WorkloadClass.INTERACTIVE, () -> {
+            int running = scheduler.call(WorkloadClass.BULK, () -> stats(scheduler).get("bulk").getRunning());
+            // BULK를 닫은 뒤에는 다시 바깥 INTERACTIVE 입장권으로 중첩 호출된다.
+            scheduler.call(WorkloadClass.INTERACTIVE, () -> "nested");
+            return running;
+        });
+
+        assertThat(bulkRunningInside).isEqualTo(1);
+        assertThat(stats(scheduler).get("bulk").getAdmitted()).isEqualTo(1);
+        assertThat(stats(scheduler).get("interactive").getAdmitted()).isEqualTo(1);
+        assertThat(stats(scheduler).get("bulk").getRunning()).isZero();
+        assertThat(stats(scheduler).get("interactive").getRunning()).isZero();
+    }
+
+    // 새 스레드에서 입장 - 입장 여부가 스레드 로컬에 남으므로 풀 스레드를 쓰지 않는다. 입장권은 테스트 스레드에서 닫는다.
+    private static CompletableFuture<QueryScheduler.Permit> acquireAsync(QueryScheduler scheduler, WorkloadClass workload) {
+        CompletableFuture<QueryScheduler.Permit> permit = new CompletableFuture<>();
+        Thread thread = new Thread(() -> {
+            try {
+                permit.complete(scheduler.acquire(workload));
+            } catch (RuntimeException e) {
+                permit.completeExceptionally(e);
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+        return permit;
+    }
+
+    private static void release(CompletableFuture<QueryScheduler.Permit> permit) {
+        permit.join().close();
+    }
+
+    private static void awaitWaiting(QueryScheduler scheduler, String workload, int waiting) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (stats(scheduler).get(workload).getWaiting() < waiting && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static Map<String, WorkloadStats> stats(QueryScheduler scheduler) {
+        return scheduler.stats().stream()
+                .collect(Collectors.toMap(WorkloadStats::getWorkload, Function.identity()));
+    }
+}
@@ -0,0 +1,41 @@
+package study.querydsl.startup;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.querydsl.repository.timing.QueryStageStats;
+import study.querydsl.repository.timing.QueryTimings;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 동기 시딩 / 워밍업 - 컨텍스트가 뜨면 워밍업이 끝나 있다.
+@SpringBootTest(properties = {
+        "querydsl.init.async=false",
+        "querydsl.warmup.enabled=true",
+        "querydsl.warmup.iterations=5",
+        "querydsl.warmup.stop-when-stable=false"})
+class SearchWarmupTest {
+
+    @Autowired
+    SearchWarmup searchWarmup;
+
+    @Autowired
+    ReadinessGate readinessGate;
+
+    @Autowired
+    QueryTimings timings;
+
+    @Test
+    public void warmupRunsConfiguredRoundsBeforeReadiness() {
+        WarmupResult result = searchWarmup.getResult();
+
+        assertThat(result).isNotNull();
+        assertThat(result.getRounds()).isEqualTo(5);
+        assertThat(readinessGate.isReady()).isTrue();
+    }
+
+    @Test
+    public void warmupQueriesAreNotReportedAsTraffic() {
+        assertThat(timings.stats()).extracting(QueryStageStats::getCount).containsOnly(0L);
+    }
+}